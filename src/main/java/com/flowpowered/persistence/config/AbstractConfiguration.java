@@ -23,18 +23,73 @@
  */
 package com.flowpowered.persistence.config;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
 
 /**
  * A basic implementation of {@link Configuration} using {@link ConfigurationNodeSource} method implementations from {@link AbstractConfigurationNodeSource}
  */
 public abstract class AbstractConfiguration extends AbstractConfigurationNodeSource implements Configuration {
+    /**
+     * The maximum amount of path strings whose compiled form is cached by {@link #compilePath(String)}
+     */
+    private static final int MAX_COMPILED_PATHS = 1024;
     private String pathSeparator;
     private Pattern pathSeparatorPattern;
     private boolean writesDefaults;
+    /**
+     * The declared default values by path. Reads consult it concurrently, so it is a concurrent map
+     */
+    private final ConcurrentMap<NodePath, Object> defaults = new ConcurrentHashMap<NodePath, Object>();
+    /**
+     * The declared defaults arranged like the node structure, so a node can find its default by walking up its parents instead of building its path
+     */
+    private final DefaultNode defaultTree = new DefaultNode();
+    /**
+     * The stamp of the last change to the declared defaults
+     */
+    private volatile long defaultsStamp;
+    private final ConcurrentMap<String, NodePath> compiledPaths = new ConcurrentHashMap<String, NodePath>();
+    private Map<NodePath, ConfigurationNode> index;
+    /**
+     * The attached nodes by their path joined with the path separator, in lexical order, or null if the sorted index is disabled
+     */
+    private TreeMap<String, ConfigurationNode> sortedIndex;
+    /**
+     * The modification stamp this configuration had when it was last loaded or saved, or -1 if it has unsaved changes regardless of its stamp
+     */
+    private long cleanVersion = -1;
+    private final ConfigurationListeners listeners = new ConfigurationListeners();
+    /**
+     * How many batches of changes are open. Listeners are notified of the collected changes when the outermost batch is closed
+     */
+    private int batchDepth;
+    /**
+     * Whether changes are currently not recorded because they are computed differently, as when loading
+     */
+    private boolean recordingSuspended;
+    private Set<NodePath> pendingChanges;
+    /**
+     * The modification stamp shared by all changes of the open batch, or 0 if none was needed yet
+     */
+    private long batchStamp;
+    private boolean cachesValues;
+    private ChildStorage childStorage = ChildStorage.ORDERED;
+    private boolean reconcilesOnLoad;
 
     public AbstractConfiguration() {
         super(null);
@@ -61,22 +116,173 @@ public abstract class AbstractConfiguration extends AbstractConfigurationNodeSou
 
     @Override
     public void load() throws ConfigurationException {
-        // Kill the existing children
-        for (ConfigurationNode child : children.values()) {
-            detachChild(child);
+        if (reconcilesOnLoad) {
+            reload();
+            return;
         }
-        children.clear();
+        // Listeners get one event with the differences instead of one per replaced node
+        Map<String, Object> oldValues = listeners.isEmpty() ? null : getValues();
+        enterBatch();
+        recordingSuspended = true;
+        try {
+            // Kill the existing children
+            detachChildren();
 
-        Map<String, ConfigurationNode> rawValues = loadToNodes();
-        // Load the new children
-        for (Map.Entry<String, ConfigurationNode> entry : rawValues.entrySet()) {
-            addChild(entry.getValue());
+            Map<String, ConfigurationNode> rawValues = loadToNodes();
+            // Load the new children
+            for (Map.Entry<String, ConfigurationNode> entry : rawValues.entrySet()) {
+                addChild(entry.getValue());
+            }
+            markClean();
+        } finally {
+            recordingSuspended = false;
+            if (oldValues != null) {
+                if (pendingChanges == null) {
+                    pendingChanges = new LinkedHashSet<NodePath>();
+                }
+                ConfigurationListeners.diff(ArrayUtils.EMPTY_STRING_ARRAY, oldValues, getValues(), pendingChanges);
+            }
+            exitBatch();
+        }
+    }
+
+    /**
+     * Loads this configuration in place. Instead of replacing the tree, the freshly loaded nodes are compared with the current ones: nodes whose value didn't change stay the same objects with
+     * their cached conversions, changed values are set on the existing nodes, and only added and removed keys create or drop nodes. References to nodes held by callers stay valid as long as their
+     * keys are still there. Only values are taken over from the loaded nodes that are kept. Listeners get one event with the changed paths.
+     *
+     * @return The paths that were added, removed and changed by the reload
+     * @throws ConfigurationException if an error occurs while loading the configuration
+     */
+    public ReloadResult reload() throws ConfigurationException {
+        ReloadResult result = new ReloadResult();
+        enterBatch();
+        try {
+            reconcile(this, loadToNodes(), result);
+            markClean();
+        } finally {
+            exitBatch();
+        }
+        return result;
+    }
+
+    private static void reconcile(AbstractConfigurationNodeSource current, Map<String, ConfigurationNode> loaded, ReloadResult result) {
+        if (current.children != null) {
+            for (ConfigurationNode child : new ArrayList<ConfigurationNode>(current.children.values())) {
+                if (!loaded.containsKey(child.getName())) {
+                    result.removed(child);
+                    current.removeChild(child);
+                }
+            }
+        }
+        for (Map.Entry<String, ConfigurationNode> entry : loaded.entrySet()) {
+            ConfigurationNode node = entry.getValue();
+            ConfigurationNode existing = current.children == null ? null : current.children.get(entry.getKey());
+            if (existing == null) {
+                current.addChild(node);
+                result.added(node);
+            } else if (node.hasChildren()) {
+                if (existing.getRawValue() != null) {
+                    existing.assignValue(null);
+                    result.changed(existing);
+                }
+                reconcile(existing, node.getChildMap(), result);
+            } else if (existing.hasChildren()) {
+                // A branch that became a leaf is replaced as a whole
+                current.removeChild(existing);
+                current.addChild(node);
+                result.changed(node);
+            } else {
+                Object value = node.getRawValue();
+                if (value == null ? existing.getRawValue() != null : !value.equals(existing.getRawValue())) {
+                    existing.assignValue(value);
+                    result.changed(existing);
+                }
+            }
         }
     }
 
     @Override
     public void save() throws ConfigurationException {
+        if (doesWriteDefaults()) {
+            applyDefaults();
+        }
+        if (!isDirty()) {
+            return;
+        }
         saveFromNodes(getChildren());
+        markClean();
+    }
+
+    @Override
+    public void edit(ConfigurationEditor editor) {
+        ConfigurationTransaction transaction = new ConfigurationTransaction(this);
+        editor.edit(transaction);
+        if (transaction.isEmpty()) {
+            return;
+        }
+        checkWritable();
+        enterBatch();
+        try {
+            apply(this, transaction.getRoot());
+        } finally {
+            exitBatch();
+        }
+    }
+
+    private static void apply(AbstractConfigurationNodeSource parent, ConfigurationTransaction.Operation operations) {
+        for (Map.Entry<String, ConfigurationTransaction.Operation> entry : operations.children.entrySet()) {
+            ConfigurationTransaction.Operation operation = entry.getValue();
+            ConfigurationNode child = parent.children == null ? null : parent.children.get(entry.getKey());
+            if (operation.remove && child != null) {
+                parent.removeChild(child);
+                child = null;
+            }
+            if (!operation.set && operation.children == null) {
+                continue;
+            }
+            if (child == null) {
+                // Attaching derives the path from the parent, so the name alone is enough
+                child = parent.createConfigurationNode(new String[] {entry.getKey()}, null);
+                parent.addChild(child);
+            }
+            if (operation.set) {
+                child.assignValue(operation.value);
+            }
+            if (operation.children != null) {
+                apply(child, operation);
+            }
+        }
+    }
+
+    @Override
+    public boolean isDirty() {
+        return getVersion() != cleanVersion;
+    }
+
+    @Override
+    public void markClean() {
+        cleanVersion = getVersion();
+    }
+
+    @Override
+    public void markDirty() {
+        cleanVersion = -1;
+    }
+
+    @Override
+    public ConfigurationSnapshot snapshot() {
+        return new ConfigurationSnapshot(this);
+    }
+
+    @Override
+    public FrozenConfiguration freeze() {
+        return new FrozenConfiguration(this);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return false;
     }
 
     @Override
@@ -125,6 +331,356 @@ public abstract class AbstractConfiguration extends AbstractConfigurationNodeSou
         parent.addChild(node);
     }
 
+    @Override
+    public ConfigurationNode getNode(String... path) {
+        if (index != null && path.length > 0) {
+            String[] corrected = ensureCorrectPath(path);
+            ConfigurationNode node = index.get(new NodePath(corrected));
+            return node != null ? node : createConfigurationNode(corrected, null);
+        }
+        return super.getNode(path);
+    }
+
+    @Override
+    public ConfigurationNode getNode(NodePath path) {
+        if (index == null) {
+            return super.getNode(path);
+        }
+        ConfigurationNode node = index.get(correctPath(path));
+        return node != null ? node : super.getNode(path);
+    }
+
+    @Override
+    public boolean hasNode(String... path) {
+        if (index != null && path.length > 0) {
+            return index.containsKey(new NodePath(ensureCorrectPath(path)));
+        }
+        return super.hasNode(path);
+    }
+
+    @Override
+    public boolean hasNode(NodePath path) {
+        if (index != null) {
+            return index.containsKey(correctPath(path));
+        }
+        return super.hasNode(path);
+    }
+
+    private NodePath correctPath(NodePath path) {
+        String[] elements = ensureCorrectPath(path.elements());
+        return elements == path.elements() ? path : new NodePath(elements);
+    }
+
+    /**
+     * Returns whether this configuration keeps an index of every attached node by its full path.
+     *
+     * @return Whether this configuration is indexed
+     * @see #setIndexed(boolean)
+     */
+    public boolean isIndexed() {
+        return index != null;
+    }
+
+    /**
+     * Sets whether this configuration keeps an index of every attached node by its full path. With the index, looking up a node with {@link #getNode(String...)} or checking it with {@link
+     * #hasNode(String...)} is a single hash lookup instead of a walk down the tree, at the cost of one index entry per node. The index is kept up to date as nodes are attached and detached.
+     *
+     * @param indexed Whether to index this configuration's nodes
+     */
+    public void setIndexed(boolean indexed) {
+        if (!indexed) {
+            index = null;
+        } else if (index == null) {
+            index = new HashMap<NodePath, ConfigurationNode>();
+            for (ConfigurationNode child : getChildMap().values()) {
+                indexNode(child);
+            }
+        }
+    }
+
+    /**
+     * Returns how this configuration's nodes store their children.
+     *
+     * @return The child storage strategy
+     * @see #setChildStorage(ChildStorage)
+     */
+    public ChildStorage getChildStorage() {
+        return childStorage;
+    }
+
+    /**
+     * Sets how this configuration's nodes store their children. The strategy applies to nodes that get their first child or outgrow their array map from now on, so it is best set before the
+     * configuration is loaded.
+     *
+     * @param childStorage The child storage strategy
+     */
+    public void setChildStorage(ChildStorage childStorage) {
+        if (childStorage == null) {
+            throw new IllegalArgumentException("Child storage must not be null!");
+        }
+        this.childStorage = childStorage;
+    }
+
+    /**
+     * Returns whether {@link #load()} reloads this configuration in place.
+     *
+     * @return Whether loading reconciles the tree with the loaded data
+     * @see #setReconcilesOnLoad(boolean)
+     */
+    public boolean reconcilesOnLoad() {
+        return reconcilesOnLoad;
+    }
+
+    /**
+     * Sets whether {@link #load()} reloads this configuration in place, like {@link #reload()}, instead of replacing the whole tree. Reconciling keeps the nodes of unchanged keys, so nodes held by
+     * callers stay valid and a reload that changes little creates little garbage.
+     *
+     * @param reconcilesOnLoad Whether loading reconciles the tree with the loaded data
+     */
+    public void setReconcilesOnLoad(boolean reconcilesOnLoad) {
+        this.reconcilesOnLoad = reconcilesOnLoad;
+    }
+
+    /**
+     * Returns whether this configuration keeps its paths in a sorted index.
+     *
+     * @return Whether this configuration has a sorted index
+     * @see #setSorted(boolean)
+     */
+    public boolean isSorted() {
+        return sortedIndex != null;
+    }
+
+    /**
+     * Sets whether this configuration keeps the paths of its attached nodes, joined with the path separator, in a sorted index. With the index, {@link #keysWithPrefix(String)}, {@link
+     * #range(String, String)} and {@link #getSortedKeys()} take O(log n + k) time for k results instead of walking the whole tree, at the cost of one index entry per node. The index is kept up to
+     * date as nodes are attached and detached.
+     *
+     * @param sorted Whether to keep a sorted index of this configuration's paths
+     */
+    public void setSorted(boolean sorted) {
+        if (!sorted) {
+            sortedIndex = null;
+        } else if (sortedIndex == null) {
+            sortedIndex = new TreeMap<String, ConfigurationNode>();
+            for (ConfigurationNode child : getChildMap().values()) {
+                indexNode(child);
+            }
+        }
+    }
+
+    /**
+     * Returns the paths of all nodes, joined with the path separator, that start with the given string. The prefix doesn't have to end at a separator, so {@code "servers.eu-"} matches both {@code
+     * "servers.eu-west"} and {@code "servers.eu-central.host"}.
+     *
+     * @param prefix The start of the paths to return
+     * @return The matching paths in lexical order
+     */
+    public SortedSet<String> keysWithPrefix(String prefix) {
+        if (sortedIndex == null) {
+            SortedSet<String> keys = new TreeSet<String>();
+            for (String key : getKeys(true)) {
+                if (key.startsWith(prefix)) {
+                    keys.add(key);
+                }
+            }
+            return Collections.unmodifiableSortedSet(keys);
+        }
+        NavigableSet<String> tail = sortedIndex.navigableKeySet().tailSet(prefix, true);
+        String last = null;
+        for (String key : tail) {
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            last = key;
+        }
+        if (last == null) {
+            return Collections.unmodifiableSortedSet(new TreeSet<String>());
+        }
+        // Copying a sorted set builds the copy in linear time
+        return Collections.unmodifiableSortedSet(new TreeSet<String>(tail.headSet(last, true)));
+    }
+
+    /**
+     * Returns the paths of all nodes, joined with the path separator, that lie in the given lexical range.
+     *
+     * @param from The lowest path to return
+     * @param to The path after the highest path to return
+     * @return The paths from {@code from}, inclusive, to {@code to}, exclusive, in lexical order
+     */
+    public SortedSet<String> range(String from, String to) {
+        if (from.compareTo(to) > 0) {
+            throw new IllegalArgumentException("The start of the range must not be after its end!");
+        }
+        if (sortedIndex == null) {
+            return Collections.unmodifiableSortedSet(new TreeSet<String>(getKeys(true)).subSet(from, to));
+        }
+        return Collections.unmodifiableSortedSet(new TreeSet<String>(sortedIndex.navigableKeySet().subSet(from, true, to, false)));
+    }
+
+    /**
+     * Returns the paths of all nodes, joined with the path separator, in lexical order.
+     *
+     * @return The sorted paths
+     */
+    public SortedSet<String> getSortedKeys() {
+        if (sortedIndex == null) {
+            return Collections.unmodifiableSortedSet(new TreeSet<String>(getKeys(true)));
+        }
+        return Collections.unmodifiableSortedSet(new TreeSet<String>(sortedIndex.navigableKeySet()));
+    }
+
+    /**
+     * Returns whether the value maps of this configuration's nodes are cached.
+     *
+     * @return Whether value maps are cached
+     * @see #setCachesValues(boolean)
+     */
+    public boolean cachesValues() {
+        return cachesValues;
+    }
+
+    /**
+     * Sets whether the value maps of this configuration's nodes are cached. When enabled, {@link ConfigurationNodeSource#getValues()}, and {@link ConfigurationNode#getValue()} on nodes with
+     * children, return an unmodifiable map that is built once and then reused until something in the node's subtree changes, so repeatedly reading an unchanged subtree as a map costs a single
+     * check. The nested maps of child nodes are cached and shared the same way.
+     *
+     * @param cachesValues Whether to cache value maps
+     */
+    public void setCachesValues(boolean cachesValues) {
+        this.cachesValues = cachesValues;
+    }
+
+    boolean isInBatch() {
+        return batchDepth > 0;
+    }
+
+    ConfigurationListeners getListeners() {
+        return listeners;
+    }
+
+    void enterBatch() {
+        ++batchDepth;
+    }
+
+    /**
+     * Closes a batch of changes, notifying the listeners of the collected changes if it was the outermost one.
+     */
+    void exitBatch() {
+        if (--batchDepth == 0) {
+            batchStamp = 0;
+        }
+        if (batchDepth == 0 && pendingChanges != null) {
+            Set<NodePath> changes = pendingChanges;
+            pendingChanges = null;
+            listeners.fire(this, changes);
+        }
+    }
+
+    /**
+     * Returns the modification stamp for a change to this configuration's nodes. Changes made while a batch is open share one stamp.
+     *
+     * @return The stamp
+     */
+    long nextStamp() {
+        if (batchDepth == 0) {
+            return newStamp();
+        }
+        if (batchStamp == 0) {
+            batchStamp = newStamp();
+        }
+        return batchStamp;
+    }
+
+    /**
+     * Records that the given node source's value or structure changed. Listeners are notified right away unless a batch is open. This does nothing while no listener is registered.
+     *
+     * @param source The changed node source, which must be attached to this configuration
+     */
+    void recordChange(AbstractConfigurationNodeSource source) {
+        if (listeners.isEmpty() || recordingSuspended) {
+            return;
+        }
+        String[] path = source.getPathElements();
+        if (path.length == 0) {
+            return;
+        }
+        if (pendingChanges == null) {
+            pendingChanges = new LinkedHashSet<NodePath>();
+        }
+        pendingChanges.add(new NodePath(path));
+        if (batchDepth == 0) {
+            enterBatch();
+            exitBatch();
+        }
+    }
+
+    /**
+     * Called when a node, along with its children, was attached to this configuration's node structure.
+     *
+     * @param node The attached node
+     */
+    void nodeAttached(ConfigurationNode node) {
+        if (index != null || sortedIndex != null) {
+            indexNode(node);
+        }
+    }
+
+    /**
+     * Called when a node, along with its children, is about to be detached from this configuration's node structure.
+     *
+     * @param node The node being detached
+     */
+    void nodeDetached(ConfigurationNode node) {
+        if (index != null || sortedIndex != null) {
+            unindexNode(node);
+        }
+    }
+
+    private void indexNode(ConfigurationNode node) {
+        indexNode(node, node.getPathElements());
+    }
+
+    /**
+     * Indexes a node and its children. The children's paths are built from the given path, so the parent chain is walked once per call rather than once per node.
+     *
+     * @param node The node to index
+     * @param path The node's path elements
+     */
+    private void indexNode(ConfigurationNode node, String[] path) {
+        if (index != null) {
+            index.put(new NodePath(path), node);
+        }
+        if (sortedIndex != null) {
+            sortedIndex.put(StringUtils.join(path, pathSeparator), node);
+        }
+        for (ConfigurationNode child : node.getChildMap().values()) {
+            indexNode(child, ArrayUtils.add(path, child.getName()));
+        }
+    }
+
+    private void unindexNode(ConfigurationNode node) {
+        unindexNode(node, node.getPathElements());
+    }
+
+    private void unindexNode(ConfigurationNode node, String[] path) {
+        if (index != null) {
+            NodePath key = new NodePath(path);
+            if (index.get(key) == node) {
+                index.remove(key);
+            }
+        }
+        if (sortedIndex != null) {
+            String key = StringUtils.join(path, pathSeparator);
+            if (sortedIndex.get(key) == node) {
+                sortedIndex.remove(key);
+            }
+        }
+        for (ConfigurationNode child : node.getChildMap().values()) {
+            unindexNode(child, ArrayUtils.add(path, child.getName()));
+        }
+    }
+
     @Override
     public String getPathSeparator() {
         return pathSeparator;
@@ -134,6 +690,12 @@ public abstract class AbstractConfiguration extends AbstractConfigurationNodeSou
     public void setPathSeparator(String pathSeparator) {
         this.pathSeparator = pathSeparator;
         this.pathSeparatorPattern = Pattern.compile(Pattern.quote(pathSeparator));
+        compiledPaths.clear();
+        if (sortedIndex != null) {
+            // The sorted paths are joined with the separator
+            sortedIndex = null;
+            setSorted(true);
+        }
     }
 
     @Override
@@ -151,11 +713,129 @@ public abstract class AbstractConfiguration extends AbstractConfigurationNodeSou
         this.writesDefaults = writesDefaults;
     }
 
+    @Override
+    public void setDefault(NodePath path, Object value) {
+        if (path == null) {
+            throw new IllegalArgumentException("Path must not be null!");
+        }
+        checkWritable();
+        if (value == null) {
+            defaults.remove(path);
+        } else {
+            defaults.put(path, value);
+        }
+        defaultsStamp = newStamp();
+        DefaultNode node = defaultTree;
+        for (String element : path.elements()) {
+            DefaultNode child = node.children.get(element);
+            if (child == null) {
+                if (value == null) {
+                    return;
+                }
+                child = new DefaultNode();
+                DefaultNode existing = node.children.putIfAbsent(element, child);
+                if (existing != null) {
+                    child = existing;
+                }
+            }
+            node = child;
+        }
+        node.value = value;
+    }
+
+    /**
+     * Returns the default declared for the given node's path, without building the path.
+     *
+     * @param node The node, which belongs to this configuration
+     * @return The declared default, or null if none was declared
+     */
+    /**
+     * Returns the stamp of the last change to this configuration's declared defaults, so values cached with the defaults folded in can tell when they went stale.
+     *
+     * @return The stamp, or 0 if no default was declared yet
+     */
+    long getDefaultsStamp() {
+        return defaultsStamp;
+    }
+
+    Object findDefault(ConfigurationNode node) {
+        if (defaults.isEmpty()) {
+            return null;
+        }
+        DefaultNode found = findDefaultNode(node);
+        return found == null ? null : found.value;
+    }
+
+    private DefaultNode findDefaultNode(ConfigurationNodeSource source) {
+        if (source == this) {
+            return defaultTree;
+        }
+        if (!(source instanceof ConfigurationNode)) {
+            return null;
+        }
+        ConfigurationNode node = (ConfigurationNode) source;
+        String[] path = node.getStoredPath();
+        if (path != null) {
+            DefaultNode found = defaultTree;
+            for (int i = 0; i < path.length && found != null; ++i) {
+                found = found.children.get(path[i]);
+            }
+            return found;
+        }
+        DefaultNode parent = findDefaultNode(node.getParent());
+        return parent == null ? null : parent.children.get(node.getName());
+    }
+
+    @Override
+    public Object getDefault(NodePath path) {
+        return defaults.isEmpty() ? null : defaults.get(path);
+    }
+
+    @Override
+    public Map<NodePath, Object> getDefaults() {
+        return Collections.unmodifiableMap(defaults);
+    }
+
+    @Override
+    public void applyDefaults() {
+        if (defaults.isEmpty()) {
+            return;
+        }
+        checkWritable();
+        enterBatch();
+        try {
+            for (Map.Entry<NodePath, Object> entry : defaults.entrySet()) {
+                ConfigurationNode node = getNode(entry.getKey().getElements());
+                if (!node.hasChildren() && node.getRawValue() == null) {
+                    node.setValue(entry.getValue());
+                }
+            }
+        } finally {
+            exitBatch();
+        }
+    }
+
     @Override
     public String[] splitNodePath(String path) {
         return getPathSeparatorPattern().split(path);
     }
 
+    @Override
+    public NodePath compilePath(String path) {
+        NodePath compiled = compiledPaths.get(path);
+        if (compiled == null) {
+            String[] split = splitNodePath(path);
+            compiled = new NodePath(split);
+            if (compiledPaths.size() < MAX_COMPILED_PATHS) {
+                NodePath existing = compiledPaths.putIfAbsent(path, compiled);
+                if (existing != null) {
+                    compiled = existing;
+                }
+            }
+        }
+        return compiled;
+    }
+
     @Override
     public String[] ensureCorrectPath(String[] rawPath) {
         return rawPath;
@@ -165,4 +845,12 @@ public abstract class AbstractConfiguration extends AbstractConfigurationNodeSou
     public String[] getPathElements() {
         return ArrayUtils.EMPTY_STRING_ARRAY;
     }
+
+    /**
+     * One path element of the declared defaults
+     */
+    private static final class DefaultNode {
+        final ConcurrentMap<String, DefaultNode> children = new ConcurrentHashMap<String, DefaultNode>();
+        volatile Object value;
+    }
 }
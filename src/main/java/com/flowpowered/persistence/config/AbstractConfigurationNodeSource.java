@@ -23,12 +23,17 @@
  */
 package com.flowpowered.persistence.config;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -37,8 +42,19 @@ import org.apache.commons.lang3.StringUtils;
  * A basic implementation of ConfigurationNodeSource.
  */
 public abstract class AbstractConfigurationNodeSource implements ConfigurationNodeSource {
-    protected final Map<String, ConfigurationNode> children = new LinkedHashMap<String, ConfigurationNode>();
+    /**
+     * The children of this node source, created when the first child is added. This is null while the node source has no children, and a small array based map while it has only a few.
+     */
+    protected Map<String, ConfigurationNode> children;
+    private static final AtomicLong STAMPS = new AtomicLong();
+    /**
+     * Seeds that keep the content hash of a leaf apart from that of a node with children
+     */
+    private static final long LEAF_SEED = 0x9E3779B97F4A7C15L;
+    private static final long BRANCH_SEED = 0xC2B2AE3D27D4EB4FL;
     protected Configuration config;
+    private long version;
+    private NodeCache cache;
 
     public AbstractConfigurationNodeSource(Configuration config) {
         this.config = config;
@@ -49,6 +65,15 @@ public abstract class AbstractConfigurationNodeSource implements ConfigurationNo
         return config;
     }
 
+    /**
+     * Returns the children of this node source without copying or wrapping them. The returned map is empty and immutable if this node source has no children.
+     *
+     * @return This node source's children
+     */
+    protected Map<String, ConfigurationNode> getChildMap() {
+        return children == null ? Collections.<String, ConfigurationNode>emptyMap() : children;
+    }
+
     @Override
     public ConfigurationNode getChild(String name) {
         return getChild(name, false);
@@ -56,10 +81,11 @@ public abstract class AbstractConfigurationNodeSource implements ConfigurationNo
 
     @Override
     public ConfigurationNode getChild(String name, boolean add) {
-        ConfigurationNode node = children.get(name);
+        ConfigurationNode node = children == null ? null : children.get(name);
         if (node == null) {
-            node = createConfigurationNode(ArrayUtils.add(getPathElements(), name), null);
-            node.setParent(this);
+            // The new node derives its path from this node source, so a lookup that only reads it doesn't copy the path
+            node = createConfigurationNode(new String[] {name}, null);
+            node.setMissingChildOf(this);
             if (add) {
                 addChild(node);
             }
@@ -67,14 +93,63 @@ public abstract class AbstractConfigurationNodeSource implements ConfigurationNo
         return node;
     }
 
+    private ChildStorage getChildStorage() {
+        return config instanceof AbstractConfiguration ? ((AbstractConfiguration) config).getChildStorage() : ChildStorage.ORDERED;
+    }
+
+    /**
+     * Makes sure the configuration this node source belongs to may be modified.
+     *
+     * @throws UnsupportedOperationException if the configuration is read-only
+     */
+    protected void checkWritable() {
+        if (config != null && config.isReadOnly()) {
+            throw new UnsupportedOperationException("The " + config.getClass().getSimpleName() + " is read-only!");
+        }
+    }
+
     @Override
     public ConfigurationNode addChild(ConfigurationNode node) {
-        ConfigurationNode ret = children.put(node.getPathElements()[node.getPathElements().length - 1], node);
+        checkWritable();
+        node.checkParent(this);
+        String name = node.getName();
+        if (children == null) {
+            children = getChildStorage().create();
+        } else if (children instanceof ArrayChildMap && ((ArrayChildMap) children).isFull() && !children.containsKey(name)) {
+            children = getChildStorage().grow(children);
+        }
+        ConfigurationNode ret = children.put(name, node);
         node.setAttached(true);
         node.setParent(this);
+        AbstractConfiguration root = getRoot();
+        if (root != null) {
+            if (ret != null && ret != node) {
+                root.nodeDetached(ret);
+            }
+            root.nodeAttached(node);
+            root.recordChange(node);
+        }
+        markModified();
         return ret;
     }
 
+    /**
+     * Adds a child that was just created by a {@link ConfigurationTreeBuilder}, without the checks and bookkeeping of {@link #addChild(ConfigurationNode)}. The subtree this node source belongs to
+     * is attached as a whole afterwards, which takes care of indexing and change notification.
+     *
+     * @param node The new child
+     */
+    void linkChild(ConfigurationNode node) {
+        String name = node.getName();
+        if (children == null) {
+            children = getChildStorage().create();
+        } else if (children instanceof ArrayChildMap && ((ArrayChildMap) children).isFull() && !children.containsKey(name)) {
+            children = getChildStorage().grow(children);
+        }
+        children.put(name, node);
+        node.link(this);
+    }
+
     @Override
     public ConfigurationNode addNode(String name) {
         if (name.contains(getConfiguration().getPathSeparator())) {
@@ -99,7 +174,7 @@ public abstract class AbstractConfigurationNodeSource implements ConfigurationNo
 
     @Override
     public ConfigurationNode removeChild(String key) {
-        return removeChild(children.get(key));
+        return removeChild(children == null ? null : children.get(key));
     }
 
     /**
@@ -112,37 +187,371 @@ public abstract class AbstractConfigurationNodeSource implements ConfigurationNo
         if (node.getParent() != this) {
             return;
         }
+        AbstractConfiguration root = getRoot();
+        if (root != null && node.isAttached()) {
+            root.nodeDetached(node);
+        }
         node.setAttached(false);
         node.setParent(null);
-        for (Iterator<ConfigurationNode> i = node.children.values().iterator(); i.hasNext(); ) {
-            node.detachChild(i.next());
-            i.remove();
+        if (node.children != null) {
+            for (Iterator<ConfigurationNode> i = node.children.values().iterator(); i.hasNext(); ) {
+                node.detachChild(i.next());
+                i.remove();
+            }
+            node.children = null;
+            // The node lost its children without a new stamp, so nothing derived from them may be kept
+            ((AbstractConfigurationNodeSource) node).cache = null;
+        }
+    }
+
+    /**
+     * Detach all of this node source's children, making sure to remove associations both ways
+     */
+    protected void detachChildren() {
+        if (children != null) {
+            for (ConfigurationNode node : children.values()) {
+                detachChild(node);
+            }
+            children = null;
+            markModified();
         }
     }
 
     @Override
     public ConfigurationNode removeChild(ConfigurationNode node) {
         if (node != null) {
+            checkWritable();
             if (node.getParent() != this) {
                 return null;
             }
-            if (children.remove(node.getPathElements()[node.getPathElements().length - 1]) == null) {
+            if (children == null || children.remove(node.getName()) == null) {
                 return null;
             }
+            AbstractConfiguration root = getRoot();
+            if (root != null) {
+                root.recordChange(node);
+            }
             detachChild(node);
+            markModified();
         }
         return node;
     }
 
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the stamp that values derived from this subtree are cached at: the later of this node source's modification stamp and the stamp of the last default declared in its configuration,
+     * since declared defaults show up in value maps too. Both stamps come from {@link #newStamp()}, so the result changes whenever either of them does.
+     *
+     * @return The stamp to cache derived values at
+     */
+    long getCacheStamp() {
+        final long stamp = getVersion();
+        return config instanceof AbstractConfiguration ? Math.max(stamp, ((AbstractConfiguration) config).getDefaultsStamp()) : stamp;
+    }
+
+    /**
+     * Returns a modification stamp higher than all stamps handed out before. Stamps are global, so a node keeps getting higher stamps even when it is moved between configurations.
+     *
+     * @return A new modification stamp
+     */
+    static long newStamp() {
+        return STAMPS.incrementAndGet();
+    }
+
+    /**
+     * Records a modification of this node source by giving it and, if it is attached, all of its ancestors a new modification stamp. All modifications made during one batch of changes share a
+     * stamp, so the walk up the tree stops at the first ancestor that already has it and building a tree in a batch only visits every node once.
+     */
+    protected void markModified() {
+        long stamp = config instanceof AbstractConfiguration ? ((AbstractConfiguration) config).nextStamp() : newStamp();
+        for (AbstractConfigurationNodeSource source = this; source != null && source.version != stamp; source = source.getAttachedParent()) {
+            source.version = stamp;
+        }
+    }
+
+    /**
+     * Starts a batch of changes to the configuration this node source belongs to, so listeners are notified once after {@link #endChanges(AbstractConfiguration)} instead of once per change.
+     *
+     * @return The configuration to pass to {@link #endChanges(AbstractConfiguration)}, or null if it doesn't track changes
+     */
+    AbstractConfiguration beginChanges() {
+        if (config instanceof AbstractConfiguration) {
+            AbstractConfiguration tracker = (AbstractConfiguration) config;
+            tracker.enterBatch();
+            return tracker;
+        }
+        return null;
+    }
+
+    static void endChanges(AbstractConfiguration tracker) {
+        if (tracker != null) {
+            tracker.exitBatch();
+        }
+    }
+
+    @Override
+    public void addListener(ConfigurationListener listener) {
+        addListener(listener, null);
+    }
+
+    @Override
+    public void addListener(ConfigurationListener listener, Executor executor) {
+        getListeners().add(getPathElements(), listener, executor);
+    }
+
+    @Override
+    public boolean removeListener(ConfigurationListener listener) {
+        return getListeners().remove(getPathElements(), listener);
+    }
+
+    private ConfigurationListeners getListeners() {
+        if (!(config instanceof AbstractConfiguration)) {
+            throw new UnsupportedOperationException("The " + getClass().getSimpleName() + " does not support listeners!");
+        }
+        return ((AbstractConfiguration) config).getListeners();
+    }
+
+    /**
+     * @return The parent this node source is attached to, or null if it isn't attached to one
+     */
+    AbstractConfigurationNodeSource getAttachedParent() {
+        return null;
+    }
+
     @Override
     public Map<String, ConfigurationNode> getChildren() {
-        return Collections.unmodifiableMap(children);
+        return children == null ? Collections.<String, ConfigurationNode>emptyMap() : Collections.unmodifiableMap(children);
     }
 
     @Override
     public Map<String, Object> getValues() {
+        AbstractConfiguration root = getRoot();
+        if (root == null || !root.cachesValues()) {
+            return buildValues();
+        }
+        final long stamp = getCacheStamp();
+        NodeCache cache = this.cache;
+        NodeCache.ValuesCell cell = cache == null ? null : cache.values;
+        if (cell != null && cell.version == stamp) {
+            return cell.values;
+        }
+        Map<String, Object> values = Collections.unmodifiableMap(buildValues());
+        // Changes made during a batch share a stamp, so a map built in the middle of one could become stale without the stamp changing
+        if (!root.isInBatch()) {
+            getCache().values = new NodeCache.ValuesCell(stamp, values);
+        }
+        return values;
+    }
+
+    /**
+     * Returns a hash of the contents of this node source's subtree: the names and values below it, but not its own name, so equal subtrees at different paths have equal hashes. Values are hashed
+     * by their type and contents with a 64-bit function, so values that aren't equal, like {@code 0} and {@code 0L}, hash differently. Subtrees with different hashes differ, and subtrees with
+     * equal hashes are equal barring a 64-bit hash collision. Child order doesn't affect the hash.
+     * <p>
+     * The hash is kept until this node source's modification stamp changes. A modification only gives new stamps to the modified node and its ancestors, so after a change, only the hashes along
+     * the modified path are computed again, from the kept hashes of the untouched subtrees. Hashes are not kept for detached nodes, during a batch of changes, or for subtrees holding a value
+     * that can be changed in place, like a list, since such a change doesn't give the node a new stamp.
+     *
+     * @return The content hash of this node source's subtree
+     */
+    public long getContentHash() {
+        if (!tracksContentHash()) {
+            return contentHash(this);
+        }
+        AbstractConfiguration root = getRoot();
+        if (root != null && hasKeptContentHash()) {
+            return cache.contentHash.hash;
+        }
+        long hash;
+        boolean keep = root != null && !root.isInBatch();
+        if (hasChildren()) {
+            long sum = 0;
+            for (ConfigurationNode child : children.values()) {
+                sum += childHash(child.getName(), child.getContentHash());
+                // A child whose hash wasn't kept may change without a new stamp, so this hash can't be kept either
+                keep &= child.hasKeptContentHash();
+            }
+            hash = mix(sum + BRANCH_SEED);
+        } else {
+            Object value = getRawValue();
+            hash = valueHash(value);
+            keep &= NodeCache.isImmutable(value);
+        }
+        // Changes made during a batch share a stamp, so a hash computed in the middle of one could become stale without the stamp changing
+        if (keep) {
+            getCache().contentHash = new NodeCache.HashCell(version, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * @return Whether this node source's content hash is kept for its current modification stamp
+     */
+    boolean hasKeptContentHash() {
+        NodeCache.HashCell cell = cache == null ? null : cache.contentHash;
+        return cell != null && cell.version == version;
+    }
+
+    /**
+     * Returns whether this node source has the same contents as the given one, by comparing their {@link #getContentHash() content hashes}. This takes constant time when the hashes of both are
+     * kept. Leaves are compared by their values, so they are never taken as equal because of a hash collision.
+     *
+     * @param other The node source to compare with
+     * @return Whether the contents are equal
+     */
+    public boolean contentEquals(ConfigurationNodeSource other) {
+        if (!hasChildren() && !other.hasChildren()) {
+            Object value = leafValue(this);
+            return value == null ? leafValue(other) == null : value.equals(leafValue(other));
+        }
+        return getContentHash() == contentHash(other);
+    }
+
+    /**
+     * Returns the value a node source without children contributes to its content hash.
+     *
+     * @param source The node source
+     * @return The value of the node source, or null
+     */
+    static Object leafValue(ConfigurationNodeSource source) {
+        if (source instanceof AbstractConfigurationNodeSource && ((AbstractConfigurationNodeSource) source).tracksContentHash()) {
+            return ((AbstractConfigurationNodeSource) source).getRawValue();
+        }
+        return source instanceof ConfigurationNode ? ((ConfigurationNode) source).getValue() : null;
+    }
+
+    /**
+     * Returns whether {@link #getContentHash()} can be computed from this node source's own children and value. Nodes of configurations that aren't an {@link AbstractConfiguration}, such as the
+     * handles of a {@link PersistentConfiguration}, keep their contents elsewhere.
+     *
+     * @return Whether this node source keeps its own contents
+     */
+    boolean tracksContentHash() {
+        return config instanceof AbstractConfiguration;
+    }
+
+    /**
+     * Returns the value stored in this node source itself, without looking at its children or defaults.
+     *
+     * @return The stored value, or null
+     */
+    Object getRawValue() {
+        return null;
+    }
+
+    /**
+     * Returns the content hash of any node source, computing it through the public accessors if the node source doesn't keep its own contents.
+     *
+     * @param source The node source
+     * @return The content hash of the node source's subtree
+     * @see #getContentHash()
+     */
+    static long contentHash(ConfigurationNodeSource source) {
+        if (source instanceof AbstractConfigurationNodeSource && ((AbstractConfigurationNodeSource) source).tracksContentHash()) {
+            return ((AbstractConfigurationNodeSource) source).getContentHash();
+        }
+        Map<String, ConfigurationNode> children = source.getChildren();
+        if (!children.isEmpty()) {
+            long sum = 0;
+            for (Map.Entry<String, ConfigurationNode> entry : children.entrySet()) {
+                sum += childHash(entry.getKey(), contentHash(entry.getValue()));
+            }
+            return mix(sum + BRANCH_SEED);
+        }
+        return valueHash(leafValue(source));
+    }
+
+    private static long childHash(String name, long hash) {
+        // Children are summed, so the name has to be mixed in for a child to count differently under another name
+        return mix(stringHash(name) * LEAF_SEED + hash);
+    }
+
+    /**
+     * Hashes a value by its type and its contents. Collections are hashed by their elements, lists in order and sets and maps regardless of it, like their equals methods compare them.
+     */
+    private static long valueHash(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        long contents;
+        if (value instanceof String) {
+            contents = stringHash((String) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            contents = Double.doubleToLongBits(((Number) value).doubleValue());
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            contents = ((Number) value).longValue();
+        } else if (value instanceof Boolean) {
+            contents = (Boolean) value ? 1 : 2;
+        } else if (value instanceof Character) {
+            contents = (Character) value;
+        } else if (value instanceof Enum<?>) {
+            contents = stringHash(((Enum<?>) value).name());
+        } else if (value instanceof List<?>) {
+            contents = 1;
+            for (Object element : (List<?>) value) {
+                contents = contents * BRANCH_SEED + valueHash(element);
+            }
+        } else if (value instanceof Set<?>) {
+            contents = 0;
+            for (Object element : (Set<?>) value) {
+                contents += mix(valueHash(element));
+            }
+        } else if (value instanceof Map<?, ?>) {
+            contents = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                contents += mix(valueHash(entry.getKey()) * LEAF_SEED + valueHash(entry.getValue()));
+            }
+        } else {
+            contents = value.hashCode();
+        }
+        // Lists and sets hash by their contents whatever their class, like their equals methods
+        String type = value instanceof List<?> ? "List" : value instanceof Set<?> ? "Set" : value instanceof Map<?, ?> ? "Map" : value.getClass().getName();
+        return mix(mix(contents + LEAF_SEED) ^ stringHash(type));
+    }
+
+    /**
+     * The 64-bit FNV-1a hash of a string. Unlike {@link String#hashCode()}, short strings don't collide just because their characters sum up the same.
+     */
+    private static long stringHash(String string) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < string.length(); ++i) {
+            hash = (hash ^ string.charAt(i)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, which spreads every input bit over the whole hash.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Returns this node source's cache, creating it on first use.
+     *
+     * @return This node source's cache
+     */
+    NodeCache getCache() {
+        NodeCache cache = this.cache;
+        if (cache == null) {
+            cache = this.cache = new NodeCache();
+        }
+        return cache;
+    }
+
+    private Map<String, Object> buildValues() {
         Map<String, Object> ret = new LinkedHashMap<String, Object>();
-        for (Map.Entry<String, ConfigurationNode> entry : getChildren().entrySet()) {
+        for (Map.Entry<String, ConfigurationNode> entry : getChildMap().entrySet()) {
             ret.put(entry.getKey(), entry.getValue().getValue());
         }
         return ret;
@@ -150,25 +559,71 @@ public abstract class AbstractConfigurationNodeSource implements ConfigurationNo
 
     @Override
     public Set<String> getKeys(boolean deep) {
-        Set<String> keys = new LinkedHashSet<String>(deep ? children.size() * 2 : children.size());
-        for (Map.Entry<String, ConfigurationNode> entry : children.entrySet()) {
-            keys.add(entry.getKey());
-            if (deep) {
-                for (String key : entry.getValue().getKeys(true)) {
-                    keys.add(entry.getKey() + getConfiguration().getPathSeparator() + key);
+        if (!deep) {
+            return new LinkedHashSet<String>(getChildMap().keySet());
+        }
+        final Set<String> keys = new LinkedHashSet<String>();
+        walk(new NodeVisitor() {
+            @Override
+            public boolean visit(CharSequence path, ConfigurationNode node) {
+                keys.add(path.toString());
+                return true;
+            }
+        });
+        return keys;
+    }
+
+    @Override
+    public Iterable<ConfigurationNode> getNodes(PathPattern pattern) {
+        return pattern.match(this);
+    }
+
+    @Override
+    public void walk(NodeVisitor visitor) {
+        if (children == null) {
+            return;
+        }
+        String separator = getConfiguration().getPathSeparator();
+        StringBuilder path = new StringBuilder();
+        // One iterator per level, and the length of the path of the level's parent
+        List<Iterator<ConfigurationNode>> iterators = new ArrayList<Iterator<ConfigurationNode>>();
+        int[] lengths = new int[8];
+        iterators.add(children.values().iterator());
+        int depth = 0;
+        while (depth >= 0) {
+            Iterator<ConfigurationNode> iterator = iterators.get(depth);
+            if (!iterator.hasNext()) {
+                iterators.remove(depth--);
+                continue;
+            }
+            ConfigurationNode node = iterator.next();
+            path.setLength(lengths[depth]);
+            if (depth > 0) {
+                path.append(separator);
+            }
+            path.append(node.getName());
+            if (visitor.visit(path, node) && node.children != null && !node.children.isEmpty()) {
+                if (++depth == lengths.length) {
+                    lengths = Arrays.copyOf(lengths, depth * 2);
                 }
+                lengths[depth] = path.length();
+                iterators.add(node.children.values().iterator());
             }
         }
-        return keys;
     }
 
     @Override
     public ConfigurationNode getNode(String path) {
-        if (path.contains(getConfiguration().getPathSeparator())) {
-            return getNode(getConfiguration().splitNodePath(path));
-        } else {
-            return getChild(path);
+        return getNode(getConfiguration().compilePath(path));
+    }
+
+    @Override
+    public ConfigurationNode getNode(NodePath path) {
+        String[] elements = getConfiguration().ensureCorrectPath(path.elements());
+        if (elements.length == 1) {
+            return getChild(elements[0]);
         }
+        return getNode(elements);
     }
 
     @Override
@@ -177,12 +632,45 @@ public abstract class AbstractConfigurationNodeSource implements ConfigurationNo
             throw new IllegalArgumentException("Path must not be empty!");
         }
         path = getConfiguration().ensureCorrectPath(path);
-        ConfigurationNode node = getChild(path[0]);
-        for (int i = 1; i < path.length && node != null && node.isAttached(); ++i) {
-            node = node.getChild(path[i]);
+        ConfigurationNode node = findNode(path);
+        return node == null ? createConfigurationNode(path, null) : node;
+    }
+
+    /**
+     * Looks up the attached node at the given, already corrected, path without creating any nodes.
+     *
+     * @param path The path elements to get to the requested node
+     * @return The node at the path, or null if there is no attached node there
+     */
+    ConfigurationNode findNode(String[] path) {
+        AbstractConfigurationNodeSource current = this;
+        for (String key : path) {
+            ConfigurationNode node = current.children == null ? null : current.children.get(key);
+            if (node == null || !node.isAttached()) {
+                return null;
+            }
+            current = node;
         }
+        return current == this ? null : (ConfigurationNode) current;
+    }
+
+    /**
+     * Returns whether this node source is part of its configuration's node structure, which is always the case for the configuration itself.
+     *
+     * @return Whether this node source is reachable from its configuration
+     */
+    boolean isRooted() {
+        return config == this;
+    }
 
-        return node == null || !node.isAttached() ? createConfigurationNode(path, null) : node;
+    /**
+     * Returns the configuration that keeps track of nodes attached below this node source, if any. This is null when this node source is not rooted or the configuration does not extend
+     * {@link AbstractConfiguration}.
+     *
+     * @return The configuration to notify of structure changes, or null
+     */
+    AbstractConfiguration getRoot() {
+        return isRooted() && config instanceof AbstractConfiguration ? (AbstractConfiguration) config : null;
     }
 
     public ConfigurationNode createConfigurationNode(String[] path, Object value) {
@@ -191,12 +679,17 @@ public abstract class AbstractConfigurationNodeSource implements ConfigurationNo
 
     @Override
     public boolean hasChildren() {
-        return children.size() > 0;
+        return children != null && !children.isEmpty();
     }
 
     @Override
     public boolean hasChild(String key) {
-        return children.containsKey(key);
+        return children != null && children.containsKey(key);
+    }
+
+    @Override
+    public boolean hasNode(NodePath path) {
+        return hasNode(path.elements());
     }
 
     @Override
@@ -207,7 +700,7 @@ public abstract class AbstractConfigurationNodeSource implements ConfigurationNo
         path = getConfiguration().ensureCorrectPath(path);
         AbstractConfigurationNodeSource current = this;
         for (String key : path) {
-            ConfigurationNode node = current.children.get(key);
+            ConfigurationNode node = current.children == null ? null : current.children.get(key);
             if (node == null) {
                 return false;
             }
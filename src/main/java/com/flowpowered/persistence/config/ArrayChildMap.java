@@ -0,0 +1,194 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A small insertion-ordered map of child nodes backed by two arrays. Lookups scan the keys linearly, which for a handful of children is faster and much smaller than a hash map. Once the map is full,
+ * the owning node source replaces it with a hash based map.
+ */
+class ArrayChildMap extends AbstractMap<String, ConfigurationNode> {
+    /**
+     * The maximum amount of children kept in an array map
+     */
+    static final int MAX_SIZE = 8;
+    private static final int INITIAL_CAPACITY = 2;
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private ConfigurationNode[] values = new ConfigurationNode[INITIAL_CAPACITY];
+    private int size;
+    private int modCount;
+
+    /**
+     * @return Whether another key can not be added without exceeding {@link #MAX_SIZE}
+     */
+    boolean isFull() {
+        return size >= MAX_SIZE;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < size; ++i) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        if (key != null) {
+            for (int i = 0; i < size; ++i) {
+                if (key.equals(keys[i])) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public ConfigurationNode get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public ConfigurationNode put(String key, ConfigurationNode value) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            ConfigurationNode old = values[index];
+            values[index] = value;
+            return old;
+        }
+        if (size == keys.length) {
+            int capacity = Math.min(keys.length * 2, MAX_SIZE);
+            if (capacity == size) {
+                throw new IllegalStateException("ArrayChildMap is full!");
+            }
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        keys[size] = key;
+        values[size] = value;
+        ++size;
+        ++modCount;
+        return null;
+    }
+
+    @Override
+    public ConfigurationNode remove(Object key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        ConfigurationNode old = values[index];
+        removeAt(index);
+        return old;
+    }
+
+    private void removeAt(int index) {
+        int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(keys, index + 1, keys, index, moved);
+            System.arraycopy(values, index + 1, values, index, moved);
+        }
+        --size;
+        keys[size] = null;
+        values[size] = null;
+        ++modCount;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        ++modCount;
+    }
+
+    @Override
+    public Set<Map.Entry<String, ConfigurationNode>> entrySet() {
+        return new AbstractSet<Map.Entry<String, ConfigurationNode>>() {
+            @Override
+            public Iterator<Map.Entry<String, ConfigurationNode>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<String, ConfigurationNode>> {
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Map.Entry<String, ConfigurationNode> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return new SimpleImmutableEntry<String, ConfigurationNode>(keys[last], values[last]);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * How the nodes of a configuration store their children, see {@link AbstractConfiguration#setChildStorage(ChildStorage)}. The compact strategies keep up to eight children
+ * in a small array map that is scanned linearly, which is faster and much smaller than a hash map for the few children most nodes have, and move a node's children into a hash map once it grows
+ * past that.
+ */
+public enum ChildStorage {
+    /**
+     * Children are kept in an array map and then in a {@link LinkedHashMap}, so they always iterate in insertion order. This is the default.
+     */
+    ORDERED {
+        @Override
+        Map<String, ConfigurationNode> create() {
+            return new ArrayChildMap();
+        }
+
+        @Override
+        Map<String, ConfigurationNode> grow(Map<String, ConfigurationNode> children) {
+            return new LinkedHashMap<String, ConfigurationNode>(children);
+        }
+    },
+    /**
+     * Children are kept in an array map and then in a {@link HashMap}, which is smaller than a linked one. Children of nodes with many of them iterate in no particular order.
+     */
+    UNORDERED {
+        @Override
+        Map<String, ConfigurationNode> create() {
+            return new ArrayChildMap();
+        }
+
+        @Override
+        Map<String, ConfigurationNode> grow(Map<String, ConfigurationNode> children) {
+            return new HashMap<String, ConfigurationNode>(children);
+        }
+    },
+    /**
+     * Children are always kept in a {@link LinkedHashMap}, for configurations whose nodes have so many children that scanning an array map first doesn't pay off.
+     */
+    LINKED {
+        @Override
+        Map<String, ConfigurationNode> create() {
+            return new LinkedHashMap<String, ConfigurationNode>();
+        }
+
+        @Override
+        Map<String, ConfigurationNode> grow(Map<String, ConfigurationNode> children) {
+            return children;
+        }
+    },
+    /**
+     * Children are always kept in a {@link HashMap} and iterate in no particular order.
+     */
+    HASHED {
+        @Override
+        Map<String, ConfigurationNode> create() {
+            return new HashMap<String, ConfigurationNode>();
+        }
+
+        @Override
+        Map<String, ConfigurationNode> grow(Map<String, ConfigurationNode> children) {
+            return children;
+        }
+    };
+
+    /**
+     * Creates the map for the first child of a node.
+     *
+     * @return An empty map of children
+     */
+    abstract Map<String, ConfigurationNode> create();
+
+    /**
+     * Moves the children of a node whose array map is full into a map without a size limit.
+     *
+     * @param children The full array map
+     * @return The map to keep the children in from now on
+     */
+    abstract Map<String, ConfigurationNode> grow(Map<String, ConfigurationNode> children);
+}
@@ -23,6 +23,7 @@
  */
 package com.flowpowered.persistence.config;
 
+import java.util.Map;
 import java.util.regex.Pattern;
 
 public interface Configuration extends ConfigurationNodeSource {
@@ -40,6 +41,55 @@ public interface Configuration extends ConfigurationNodeSource {
      */
     void save() throws ConfigurationException;
 
+    /**
+     * Creates an immutable copy of this configuration's current node structure. The snapshot does not change when this configuration changes and rejects any modification, so once created it can be
+     * read from any number of threads without locking.
+     *
+     * @return A read-only snapshot of this configuration
+     */
+    ConfigurationSnapshot snapshot();
+
+    /**
+     * Compiles this configuration's current node structure into a read-only snapshot optimized for lookups, see {@link FrozenConfiguration}. Use it for configurations that are read often and
+     * change rarely; like {@link #snapshot()}, it does not change when this configuration changes.
+     *
+     * @return A frozen copy of this configuration
+     */
+    FrozenConfiguration freeze();
+
+    /**
+     * Whether this configuration rejects modifications. Setting values on, adding nodes to or removing nodes from a read-only configuration throws an {@link UnsupportedOperationException}.
+     *
+     * @return Whether this configuration is read-only
+     */
+    boolean isReadOnly();
+
+    /**
+     * Applies a batch of puts and removes recorded by the given editor. The batch is validated once and applied in a single walk of the node structure, without computing the old values a series
+     * of {@link ConfigurationNode#setValue(Object)} calls would return. Listeners receive one event for the whole batch. If the editor throws, nothing is applied.
+     *
+     * @param editor The editor recording the changes
+     */
+    void edit(ConfigurationEditor editor);
+
+    /**
+     * Whether this configuration was modified since it was last loaded or saved. A configuration that was never loaded or saved is dirty. {@link #save()} does nothing while the configuration is
+     * clean.
+     *
+     * @return Whether this configuration has unsaved changes
+     */
+    boolean isDirty();
+
+    /**
+     * Marks the current state of this configuration as saved, so {@link #save()} does nothing until the configuration is modified again.
+     */
+    void markClean();
+
+    /**
+     * Marks this configuration as having unsaved changes, so the next {@link #save()} writes it even if it wasn't modified.
+     */
+    void markDirty();
+
     /**
      * Adds the given node to the configuration structure This will attempt to use the node's existing parents in the configuration structure where possible
      *
@@ -65,7 +115,9 @@ public interface Configuration extends ConfigurationNodeSource {
     Pattern getPathSeparatorPattern();
 
     /**
-     * Whether this configuration writes default values (from {@link ConfigurationNode#getValue(Object)} to the configuration structure
+     * Whether this configuration writes default values to the configuration structure. If it does, the defaults declared with {@link #setDefault(NodePath, Object)} are applied by {@link
+     * #save()}, and a {@link ConfigurationHolder} declares its default value when it is first read. A default passed to {@link ConfigurationNode#getValue(Object)} is only returned, so reading a
+     * value never changes the configuration either way.
      *
      * @return Whether this configuration writes defaults
      */
@@ -79,6 +131,35 @@ public interface Configuration extends ConfigurationNodeSource {
      */
     void setWritesDefaults(boolean writesDefaults);
 
+    /**
+     * Declares the default value of the node at the given path. Reading the node while it has neither a value nor children returns the default, but the default is kept apart from the
+     * configuration structure: it is neither visible through {@link #getValues()} or {@link #getKeys(boolean)} nor saved until {@link #applyDefaults()} writes it.
+     *
+     * @param path The path of the node
+     * @param value The default value, or null to remove the default
+     */
+    void setDefault(NodePath path, Object value);
+
+    /**
+     * Returns the default value declared for the node at the given path.
+     *
+     * @param path The path of the node
+     * @return The default value, or null if none was declared
+     */
+    Object getDefault(NodePath path);
+
+    /**
+     * Returns the default values declared for this configuration's nodes.
+     *
+     * @return An unmodifiable view of the declared defaults by path
+     */
+    Map<NodePath, Object> getDefaults();
+
+    /**
+     * Writes the declared defaults of nodes that have neither a value nor children to the configuration structure, so they are saved. Listeners receive one event for all written defaults.
+     */
+    void applyDefaults();
+
     /**
      * Split the provided path into a string array suitable for accessing the correct configuration children. Normally this just splits the path with the {@link #getPathSeparator()}, but can limit how
      * deep a child path can go or whether this configuration can even have children.
@@ -88,6 +169,15 @@ public interface Configuration extends ConfigurationNodeSource {
      */
     String[] splitNodePath(String path);
 
+    /**
+     * Split the provided path like {@link #splitNodePath(String)}, returning a {@link NodePath} that can be reused for repeated lookups. Implementations may cache the result, so compiling the same
+     * string twice does not split it again.
+     *
+     * @param path The path to compile
+     * @return The compiled path
+     */
+    NodePath compilePath(String path);
+
     /**
      * Make sure the provided path meets the requirements. A correct implementation of Configuration will impose the same restrictions on this and {@link #splitNodePath(String)}, so invoking this method
      * on an array from {@link #splitNodePath(String)} would return the original array.
@@ -0,0 +1,72 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Describes a batch of changes made to a configuration.
+ */
+public class ConfigurationEvent {
+    private final Configuration configuration;
+    private final Set<NodePath> changedPaths;
+
+    public ConfigurationEvent(Configuration configuration, Set<NodePath> changedPaths) {
+        this.configuration = configuration;
+        this.changedPaths = Collections.unmodifiableSet(changedPaths);
+    }
+
+    /**
+     * @return The configuration that was changed
+     */
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Returns the paths of the changed nodes, relative to the root of the configuration. A path stands for the node at it and everything below it, so a replaced or removed subtree is reported
+     * once by its root. Only the paths inside or above the subtree the listener is registered on are included.
+     *
+     * @return The paths of the changed nodes
+     */
+    public Set<NodePath> getChangedPaths() {
+        return changedPaths;
+    }
+
+    /**
+     * Returns whether the node at the given path, or anything below or above it, changed.
+     *
+     * @param path The path to check
+     * @return Whether a change affects the node at the path
+     */
+    public boolean affects(NodePath path) {
+        for (NodePath changed : changedPaths) {
+            if (path.startsWith(changed) || changed.startsWith(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
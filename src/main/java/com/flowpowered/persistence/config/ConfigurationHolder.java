@@ -25,6 +25,7 @@ package com.flowpowered.persistence.config;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.lang3.ArrayUtils;
 
@@ -37,6 +38,10 @@ public class ConfigurationHolder extends ValueHolderBase implements Configuratio
     private Configuration configuration;
     private final String[] path;
     private Object def;
+    /**
+     * The configuration the default value was last declared in, or null if it wasn't declared since it changed
+     */
+    private Configuration declaredIn;
 
     public ConfigurationHolder(Configuration config, Object def, String... path) {
         this.path = path;
@@ -52,7 +57,27 @@ public class ConfigurationHolder extends ValueHolderBase implements Configuratio
         if (getConfiguration() == null) {
             throw new IllegalStateException("The ConfigurationHolder at path " + ArrayUtils.toString(path) + " is not attached to a Configuration!");
         }
-        return getConfiguration().getNode(getPathElements());
+        Configuration config = getConfiguration();
+        if (declaredIn != config) {
+            declareDefault(config);
+        }
+        return config.getNode(getPathElements());
+    }
+
+    /**
+     * Declares this holder's default value as the default of its path, if the configuration writes defaults, so the default is saved with the configuration. A default declared by other means
+     * is kept.
+     *
+     * @param config The configuration to declare the default in
+     */
+    private void declareDefault(Configuration config) {
+        if (def != null && config.doesWriteDefaults() && !config.isReadOnly()) {
+            NodePath key = NodePath.of(path);
+            if (config.getDefault(key) == null) {
+                config.setDefault(key, def);
+            }
+        }
+        declaredIn = config;
     }
 
     @Override
@@ -85,6 +110,7 @@ public class ConfigurationHolder extends ValueHolderBase implements Configuratio
      */
     public void setDefaultValue(Object def) {
         this.def = def;
+        this.declaredIn = null;
     }
 
     @Override
@@ -151,6 +177,16 @@ public class ConfigurationHolder extends ValueHolderBase implements Configuratio
         return getNode().getKeys(deep);
     }
 
+    @Override
+    public void walk(NodeVisitor visitor) {
+        getNode().walk(visitor);
+    }
+
+    @Override
+    public Iterable<ConfigurationNode> getNodes(PathPattern pattern) {
+        return getNode().getNodes(pattern);
+    }
+
     @Override
     public ConfigurationNode getNode(String path) {
         return getNode().getNode(path);
@@ -161,6 +197,11 @@ public class ConfigurationHolder extends ValueHolderBase implements Configuratio
         return getNode().getNode(path);
     }
 
+    @Override
+    public ConfigurationNode getNode(NodePath path) {
+        return getNode().getNode(path);
+    }
+
     @Override
     public boolean hasChildren() {
         return getNode().hasChildren();
@@ -173,4 +214,29 @@ public class ConfigurationHolder extends ValueHolderBase implements Configuratio
     public boolean hasNode(String... path) {
         return getNode().hasNode(path);
     }
+
+    @Override
+    public boolean hasNode(NodePath path) {
+        return getNode().hasNode(path);
+    }
+
+    @Override
+    public long getVersion() {
+        return getNode().getVersion();
+    }
+
+    @Override
+    public void addListener(ConfigurationListener listener) {
+        getNode().addListener(listener);
+    }
+
+    @Override
+    public void addListener(ConfigurationListener listener, Executor executor) {
+        getNode().addListener(listener, executor);
+    }
+
+    @Override
+    public boolean removeListener(ConfigurationListener listener) {
+        return getNode().removeListener(listener);
+    }
 }
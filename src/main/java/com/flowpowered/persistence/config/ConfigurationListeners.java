@@ -0,0 +1,180 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+/**
+ * The listeners registered on the subtrees of one configuration. Registration is thread-safe, and firing an event costs nothing while no listener is registered.
+ */
+final class ConfigurationListeners {
+    private final List<Registration> registrations = new CopyOnWriteArrayList<Registration>();
+
+    boolean isEmpty() {
+        return registrations.isEmpty();
+    }
+
+    /**
+     * Registers a listener for the subtree at the given path.
+     *
+     * @param path The path of the subtree, empty for the whole configuration
+     * @param listener The listener
+     * @param executor The executor to notify the listener on, or null to notify it on the thread making the change
+     */
+    void add(String[] path, ConfigurationListener listener, Executor executor) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null!");
+        }
+        registrations.add(new Registration(path.length == 0 ? null : new NodePath(path.clone()), listener, executor));
+    }
+
+    /**
+     * Unregisters a listener from the subtree at the given path.
+     *
+     * @param path The path of the subtree, empty for the whole configuration
+     * @param listener The listener
+     * @return Whether the listener was registered there
+     */
+    boolean remove(String[] path, ConfigurationListener listener) {
+        NodePath prefix = path.length == 0 ? null : new NodePath(path);
+        for (Registration registration : registrations) {
+            if (registration.listener == listener && Objects.equals(registration.prefix, prefix)) {
+                return registrations.remove(registration);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Notifies every listener whose subtree is affected by at least one of the changes. Each listener receives a single event holding the changes that affect it.
+     *
+     * @param configuration The changed configuration
+     * @param changes The paths of the changed nodes
+     */
+    void fire(Configuration configuration, Set<NodePath> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        changes = collapse(changes);
+        for (Registration registration : registrations) {
+            Set<NodePath> relevant;
+            if (registration.prefix == null) {
+                relevant = changes;
+            } else {
+                relevant = new LinkedHashSet<NodePath>();
+                for (NodePath change : changes) {
+                    if (change.startsWith(registration.prefix) || registration.prefix.startsWith(change)) {
+                        relevant.add(change);
+                    }
+                }
+                if (relevant.isEmpty()) {
+                    continue;
+                }
+            }
+            registration.deliver(new ConfigurationEvent(configuration, relevant));
+        }
+    }
+
+    /**
+     * Removes the paths that lie below another path of the set, since a changed path already covers everything below it.
+     *
+     * @param changes The paths of the changed nodes
+     * @return The paths that are not covered by another path
+     */
+    private static Set<NodePath> collapse(Set<NodePath> changes) {
+        if (changes.size() < 2) {
+            return changes;
+        }
+        Set<NodePath> ret = new LinkedHashSet<NodePath>();
+        outer:
+        for (NodePath change : changes) {
+            String[] elements = change.elements();
+            for (int i = 1; i < elements.length; ++i) {
+                if (changes.contains(new NodePath(Arrays.copyOf(elements, i)))) {
+                    continue outer;
+                }
+            }
+            ret.add(change);
+        }
+        return ret;
+    }
+
+    /**
+     * Compares two values as returned by {@link ConfigurationNode#getValue()} and adds the paths of everything that differs. Maps are compared key by key, so only the changed leaves, and the
+     * roots of added or removed subtrees, are reported.
+     *
+     * @param path The path of the compared values
+     * @param oldValue The value before the change
+     * @param newValue The value after the change
+     * @param changes The set to add the changed paths to
+     */
+    static void diff(String[] path, Object oldValue, Object newValue, Set<NodePath> changes) {
+        if (oldValue instanceof Map<?, ?> && newValue instanceof Map<?, ?>) {
+            Map<?, ?> oldMap = (Map<?, ?>) oldValue;
+            Map<?, ?> newMap = (Map<?, ?>) newValue;
+            Set<Object> keys = new HashSet<Object>(oldMap.keySet());
+            keys.addAll(newMap.keySet());
+            for (Object key : keys) {
+                diff(ArrayUtils.add(path, key.toString()), oldMap.get(key), newMap.get(key), changes);
+            }
+        } else if (!Objects.equals(oldValue, newValue) && path.length > 0) {
+            changes.add(new NodePath(path));
+        }
+    }
+
+    private static class Registration {
+        private final NodePath prefix;
+        private final ConfigurationListener listener;
+        private final Executor executor;
+
+        public Registration(NodePath prefix, ConfigurationListener listener, Executor executor) {
+            this.prefix = prefix;
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        public void deliver(final ConfigurationEvent event) {
+            if (executor == null) {
+                listener.configurationChanged(event);
+            } else {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.configurationChanged(event);
+                    }
+                });
+            }
+        }
+    }
+}
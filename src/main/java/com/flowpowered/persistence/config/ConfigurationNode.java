@@ -23,19 +23,16 @@
  */
 package com.flowpowered.persistence.config;
 
-import java.lang.ref.WeakReference;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Date;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import com.flowpowered.persistence.CastUtils;
 import com.flowpowered.persistence.config.serialization.Serialization;
 import com.flowpowered.persistence.data.ValueHolder;
 import com.flowpowered.persistence.data.ValueHolderBase;
@@ -43,206 +40,348 @@ import com.flowpowered.persistence.data.ValueHolderBase;
 public class ConfigurationNode extends AbstractConfigurationNodeSource implements ValueHolder {
     private Object value;
     private boolean attached;
-    private WeakReference<ConfigurationNodeSource> parent = new WeakReference<ConfigurationNodeSource>(null);
-    private final String[] path;
-    private final ValueHolderBase valueHolder = new ValueHolderBase(this);
+    private ConfigurationNodeSource parent;
+    /**
+     * The elements of this node's path. This is null while the node is attached to a parent, in which case the path is derived from the parent's path and {@link #name}
+     */
+    private String[] path;
+    private final String name;
+    private ValueHolderBase valueHolder;
 
     public ConfigurationNode(Configuration config, String[] path, Object value) {
         super(config);
         this.path = path;
+        this.name = path == null || path.length == 0 ? null : path[path.length - 1];
         if (value != null) {
             setValue(value);
         }
     }
 
-    // Delegated methods
+    /**
+     * Returns the value holder that typed getters are delegated to, creating it on first use so nodes that are never read through typed getters don't carry one.
+     *
+     * @return This node's value holder
+     */
+    private ValueHolderBase valueHolder() {
+        ValueHolderBase holder = valueHolder;
+        if (holder == null) {
+            holder = valueHolder = new ValueHolderBase(this);
+        }
+        return holder;
+    }
+
+    /**
+     * Returns whether this node has neither a value, children nor a declared default, so a typed getter can return the caller's default without boxing or converting it. Handles that
+     * don't keep their value in this node override this.
+     *
+     * @return Whether reading this node yields the caller's default
+     */
+    boolean isUnset() {
+        return value == null && !hasChildren() && getDefault(null) == null;
+    }
+
+    // Delegated methods. The int, long, double and boolean getters read numbers and booleans directly, and keep values parsed from strings in a cell so that repeated reads neither box nor parse.
+    // Reading a node that is unset returns the given default directly
 
     @Override
     public boolean getBoolean() {
-        return valueHolder.getBoolean();
+        return getBoolean(false);
     }
 
     @Override
     public boolean getBoolean(boolean def) {
-        return valueHolder.getBoolean(def);
+        final Object value = this.value;
+        if (value == null || hasChildren()) {
+            return isUnset() ? def : valueHolder().getBoolean(def);
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (!(value instanceof String)) {
+            return valueHolder().getBoolean(def);
+        }
+        final NodeCache cache = getCache();
+        NodeCache.ValueCell cell = cache.booleanCell;
+        if (cell == null || cell.source != value) {
+            final Boolean coerced = CastUtils.castBoolean(value);
+            cell = cache.booleanCell = new NodeCache.ValueCell(value, coerced != null, coerced != null && coerced ? 1 : 0);
+        }
+        return cell.present ? cell.bits != 0 : def;
     }
 
     @Override
     public byte getByte() {
-        return valueHolder.getByte();
+        return getByte((byte) 0);
     }
 
     @Override
     public byte getByte(byte def) {
-        return valueHolder.getByte(def);
+        return isUnset() ? def : valueHolder().getByte(def);
     }
 
     @Override
     public float getFloat() {
-        return valueHolder.getFloat();
+        return getFloat(0f);
     }
 
     @Override
     public float getFloat(float def) {
-        return valueHolder.getFloat(def);
+        return isUnset() ? def : valueHolder().getFloat(def);
     }
 
     @Override
     public short getShort() {
-        return valueHolder.getShort();
+        return getShort((short) 0);
     }
 
     @Override
     public short getShort(short def) {
-        return valueHolder.getShort(def);
+        return isUnset() ? def : valueHolder().getShort(def);
     }
 
     @Override
     public int getInt() {
-        return valueHolder.getInt();
+        return getInt(0);
     }
 
     @Override
     public int getInt(int def) {
-        return valueHolder.getInt(def);
+        final Object value = this.value;
+        if (value == null || hasChildren()) {
+            return isUnset() ? def : valueHolder().getInt(def);
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (!(value instanceof String)) {
+            return valueHolder().getInt(def);
+        }
+        final NodeCache cache = getCache();
+        NodeCache.ValueCell cell = cache.intCell;
+        if (cell == null || cell.source != value) {
+            final Integer coerced = CastUtils.castInt(value);
+            cell = cache.intCell = new NodeCache.ValueCell(value, coerced != null, coerced == null ? 0 : coerced);
+        }
+        return cell.present ? (int) cell.bits : def;
     }
 
     @Override
     public long getLong() {
-        return valueHolder.getLong();
+        return getLong(0);
     }
 
     @Override
     public long getLong(long def) {
-        return valueHolder.getLong(def);
+        final Object value = this.value;
+        if (value == null || hasChildren()) {
+            return isUnset() ? def : valueHolder().getLong(def);
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (!(value instanceof String)) {
+            return valueHolder().getLong(def);
+        }
+        final NodeCache cache = getCache();
+        NodeCache.ValueCell cell = cache.longCell;
+        if (cell == null || cell.source != value) {
+            final Long coerced = CastUtils.castLong(value);
+            cell = cache.longCell = new NodeCache.ValueCell(value, coerced != null, coerced == null ? 0 : coerced);
+        }
+        return cell.present ? cell.bits : def;
     }
 
     @Override
     public double getDouble() {
-        return valueHolder.getDouble();
+        return getDouble(0);
     }
 
     @Override
     public double getDouble(double def) {
-        return valueHolder.getDouble(def);
+        final Object value = this.value;
+        if (value == null || hasChildren()) {
+            return isUnset() ? def : valueHolder().getDouble(def);
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (!(value instanceof String)) {
+            return valueHolder().getDouble(def);
+        }
+        final NodeCache cache = getCache();
+        NodeCache.ValueCell cell = cache.doubleCell;
+        if (cell == null || cell.source != value) {
+            final Double coerced = CastUtils.castDouble(value);
+            cell = cache.doubleCell = new NodeCache.ValueCell(value, coerced != null, coerced == null ? 0 : Double.doubleToRawLongBits(coerced));
+        }
+        return cell.present ? Double.longBitsToDouble(cell.bits) : def;
     }
 
     @Override
     public BigInteger getBigInt() {
-        return valueHolder.getBigInt();
+        return getBigInt(null);
     }
 
     @Override
     public BigInteger getBigInt(BigInteger def) {
-        return valueHolder.getBigInt(def);
+        return isUnset() ? def : valueHolder().getBigInt(def);
     }
 
     @Override
     public BigDecimal getDecimal() {
-        return valueHolder.getDecimal();
+        return getDecimal(null);
     }
 
     @Override
     public BigDecimal getDecimal(BigDecimal def) {
-        return valueHolder.getDecimal(def);
+        return isUnset() ? def : valueHolder().getDecimal(def);
     }
 
     @Override
     public Date getDate() {
-        return valueHolder.getDate();
+        return getDate(null);
     }
 
     public Date getDate(Date def) {
-        return valueHolder.getDate(def);
+        return isUnset() ? def : valueHolder().getDate(def);
     }
 
     @Override
     public byte[] getBytes() {
-        return valueHolder.getBytes();
+        return getBytes(null);
     }
 
     public byte[] getBytes(byte[] def) {
-        return valueHolder.getBytes(def);
+        return isUnset() ? def : valueHolder().getBytes(def);
     }
 
     @Override
     public String getString() {
-        return valueHolder.getString();
+        return getString(null);
     }
 
     @Override
     public String getString(String def) {
-        return valueHolder.getString(def);
+        return isUnset() ? def : valueHolder().getString(def);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Converted values are kept as described for {@link #getTypedValue(Type, Object)}.
+     */
     @Override
     public <T> T getTypedValue(Class<T> type) {
-        return valueHolder.getTypedValue(type);
+        return getTypedValue(type, null);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Converted values are kept as described for {@link #getTypedValue(Type, Object)}.
+     */
     @Override
     public <T> T getTypedValue(Class<T> type, T def) {
-        return valueHolder.getTypedValue(type, def);
+        final Object val = convert(type);
+        return type.isInstance(val) ? type.cast(val) : def;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Converted values are kept as described for {@link #getTypedValue(Type, Object)}.
+     */
     @Override
     public Object getTypedValue(Type type) {
-        return valueHolder.getTypedValue(type);
+        return getTypedValue(type, null);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Converted values that can't be modified in place, like strings, boxed primitives and enum constants, are kept until this node or one of its children changes. Other values, like lists and
+     * maps, are converted again on every call, so callers get their own instance.
+     */
     @Override
     public Object getTypedValue(Type type, Object def) {
-        return valueHolder.getTypedValue(type, def);
+        final Object val = convert(type);
+        return val == null ? def : val;
+    }
+
+    /**
+     * Converts this node's value to the given type, reusing the result of an earlier conversion to the same type if this node hasn't changed since.
+     *
+     * @param type The type to convert to
+     * @return The converted value, or null if it can't be converted
+     */
+    private Object convert(Type type) {
+        final long version = getCacheStamp();
+        final NodeCache cache = getCache();
+        NodeCache.TypedValues typed = cache.typedValues;
+        if (typed != null && typed.version == version) {
+            final Object val = typed.values.get(type);
+            if (val != null) {
+                return val == NodeCache.TypedValues.NULL ? null : val;
+            }
+        }
+        final Object val = Serialization.deserialize(type, getValue());
+        // Changes made during a batch share a stamp, so a value converted in the middle of one could become stale without the stamp changing. A declared default can be modified in place, so a
+        // node without a value isn't cached. A mutable result would be shared by every caller, and a mutable value can change without a new stamp, so neither is cached
+        if ((hasChildren() || value != null && NodeCache.isImmutable(value)) && NodeCache.isImmutable(val) && !(config instanceof AbstractConfiguration && ((AbstractConfiguration) config)
+                .isInBatch())) {
+            cache.typedValues = (typed != null && typed.version == version ? typed : NodeCache.TypedValues.empty(version)).with(type, val);
+        }
+        return val;
     }
 
     @Override
     public List<?> getList() {
-        return valueHolder.getList();
+        return valueHolder().getList();
     }
 
     @Override
     public List<?> getList(List<?> def) {
-        return valueHolder.getList(def);
+        return valueHolder().getList(def);
     }
 
     @Override
     public List<String> getStringList() {
-        return valueHolder.getStringList();
+        return valueHolder().getStringList();
     }
 
     @Override
     public List<String> getStringList(List<String> def) {
-        return valueHolder.getStringList(def);
+        return valueHolder().getStringList(def);
     }
 
     @Override
     public List<Integer> getIntegerList() {
-        return valueHolder.getIntegerList();
+        return valueHolder().getIntegerList();
     }
 
     @Override
     public List<Integer> getIntegerList(List<Integer> def) {
-        return valueHolder.getIntegerList(def);
+        return valueHolder().getIntegerList(def);
     }
 
     @Override
     public List<Double> getDoubleList() {
-        return valueHolder.getDoubleList();
+        return valueHolder().getDoubleList();
     }
 
     @Override
     public List<Double> getDoubleList(List<Double> def) {
-        return valueHolder.getDoubleList(def);
+        return valueHolder().getDoubleList(def);
     }
 
     @Override
     public List<Boolean> getBooleanList() {
-        return valueHolder.getBooleanList();
+        return valueHolder().getBooleanList();
     }
 
     @Override
     public List<Boolean> getBooleanList(List<Boolean> def) {
-        return valueHolder.getBooleanList(def);
+        return valueHolder().getBooleanList(def);
     }
 
     // Actual value access
@@ -262,11 +401,38 @@ public class ConfigurationNode extends AbstractConfigurationNodeSource implement
             return value;
         }
 
-        if (def != null && getConfiguration().doesWriteDefaults()) {
-            setValue(def);
+        return getDefault(def);
+    }
+
+    /**
+     * Returns the default of this node when it has neither a value nor children. A default declared for this node's path wins over the given one. Reading never changes the configuration: the
+     * given default is only returned, and defaults are only declared by {@link Configuration#setDefault(NodePath, Object)}.
+     *
+     * @param def The default value given by the caller, or null
+     * @return The default value to return
+     */
+    Object getDefault(Object def) {
+        final Configuration config = getConfiguration();
+        final Object declared;
+        if (config instanceof AbstractConfiguration) {
+            declared = ((AbstractConfiguration) config).findDefault(this);
+        } else if (config.getDefaults().isEmpty()) {
+            declared = null;
+        } else {
+            final String[] path = getPathElements();
+            declared = path == null || path.length == 0 ? null : config.getDefault(new NodePath(path));
         }
+        return declared != null ? declared : def;
+    }
 
-        return def;
+    /**
+     * Returns the value stored in this node, without looking at its children or defaults.
+     *
+     * @return The stored value, or null
+     */
+    @Override
+    Object getRawValue() {
+        return value;
     }
 
     /**
@@ -276,24 +442,45 @@ public class ConfigurationNode extends AbstractConfigurationNodeSource implement
      * @return The previous value of the configuration
      */
     public Object setValue(Object value) {
+        AbstractConfiguration tracker = beginChanges();
+        try {
+            checkAdded();
+            Object old = this.getValue();
+            assignValue(value);
+            return old;
+        } finally {
+            endChanges(tracker);
+        }
+    }
+
+    /**
+     * Sets the value of this node without attaching it or computing the old value. This is the part of {@link #setValue(Object)} that batch edits need.
+     *
+     * @param value The value to set
+     */
+    void assignValue(Object value) {
         if (value instanceof ValueHolder) {
             value = ((ValueHolder) value).getValue();
         }
-        checkAdded();
-        Object old = this.getValue();
+        // A collection or array may have been changed in place since it was set, so only an equal immutable value is no change
+        if (children == null && value != null && NodeCache.isImmutable(value) && value.equals(this.value)) {
+            return;
+        }
         if (value instanceof Map<?, ?>) {
             this.value = null;
-            removeChildren();
-            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
-                addChild(createConfigurationNode(ArrayUtils.add(getPathElements(), entry.getKey().toString()), entry.getValue()));
-            }
+            detachChildren();
+            new ConfigurationTreeBuilder(this).putAll((Map<?, ?>) value).attach();
         } else {
             if (value != null) {
-                removeChildren();
+                detachChildren();
             }
             this.value = value;
         }
-        return old;
+        markModified();
+        AbstractConfiguration root = getRoot();
+        if (root != null) {
+            root.recordChange(this);
+        }
     }
 
     /**
@@ -307,27 +494,22 @@ public class ConfigurationNode extends AbstractConfigurationNodeSource implement
 
     // Util methods to make sure stuff is connected properly
 
-    /**
-     * Detach all this node's children, making sure to remove associations both ways
-     */
-    private void removeChildren() {
-        for (ConfigurationNode node : children.values()) {
-            detachChild(node);
-        }
-        children.clear();
-    }
-
     protected void checkAdded() {
+        checkWritable();
         if (!isAttached()) {
             getConfiguration().setNode(this);
         }
     }
 
     public void remove() {
+        checkWritable();
         if (isAttached()) {
             getParent().removeChild(this);
         }
-        this.value = null;
+        if (value != null) {
+            this.value = null;
+            markModified();
+        }
     }
 
     /**
@@ -343,31 +525,93 @@ public class ConfigurationNode extends AbstractConfigurationNodeSource implement
         this.attached = value;
     }
 
+    @Override
+    boolean isRooted() {
+        return attached;
+    }
+
+    @Override
+    AbstractConfigurationNodeSource getAttachedParent() {
+        return attached && parent instanceof AbstractConfigurationNodeSource ? (AbstractConfigurationNodeSource) parent : null;
+    }
+
     public ConfigurationNodeSource getParent() {
-        return parent.get();
+        return parent;
     }
 
-    protected void setParent(ConfigurationNodeSource parent) {
+    /**
+     * Makes sure this node can become a child of the given parent without creating a cycle.
+     *
+     * @param parent The future parent
+     * @throws IllegalArgumentException if the parent is this node or lies below it
+     */
+    void checkParent(ConfigurationNodeSource parent) {
         if (parent == this) {
-            throw new IllegalArgumentException("Attempted circular inheritance between child" + getPath() + " and parent.");
-        }
-        Set<ConfigurationNodeSource> visited = new HashSet<ConfigurationNodeSource>();
-        ConfigurationNodeSource oldParent = getParent();
-        while (oldParent != null) {
-            if (visited.contains(oldParent)) {
-                throw new IllegalArgumentException("Attempted circular inheritance between child " + getPath() + " and parent " +
-                        (oldParent instanceof ConfigurationNode ? ((ConfigurationNode) oldParent).getPath() : "root") + ".");
+            throw new IllegalArgumentException("Attempted circular inheritance between child " + getPath() + " and parent.");
+        }
+        // Only a node with children can be an ancestor of the new parent, so attaching a leaf, the common case, needs no walk
+        if (hasChildren()) {
+            for (ConfigurationNodeSource ancestor = parent; ancestor instanceof ConfigurationNode; ancestor = ((ConfigurationNode) ancestor).getParent()) {
+                if (ancestor == this) {
+                    throw new IllegalArgumentException("Attempted circular inheritance between child " + getPath() + " and parent " + ((ConfigurationNode) parent).getPath() + ".");
+                }
             }
-            visited.add(oldParent);
-            oldParent = oldParent instanceof ConfigurationNode ? ((ConfigurationNode) oldParent).getParent() : null;
         }
-        this.parent = new WeakReference<ConfigurationNodeSource>(parent);
+    }
+
+    /**
+     * Links this node, which was just created by a {@link ConfigurationTreeBuilder}, to its parent, so its path is derived from the parent's.
+     *
+     * @param parent The parent
+     */
+    void link(AbstractConfigurationNodeSource parent) {
+        this.parent = parent;
+        this.attached = true;
+        this.path = null;
+    }
+
+    /**
+     * Makes this node, which was just created for a missing child of the given parent, derive its path from the parent's without attaching it. Like any detached node, it is attached once a
+     * value is set or a child is added.
+     *
+     * @param parent The node source the node would be a child of
+     */
+    void setMissingChildOf(AbstractConfigurationNodeSource parent) {
+        checkParent(parent);
+        this.parent = parent;
+        this.path = null;
+    }
+
+    /**
+     * Sets the value of this node, which was just created by a {@link ConfigurationTreeBuilder}, without attaching it or recording the change.
+     *
+     * @param value The value, which must not be a map
+     */
+    void initValue(Object value) {
+        this.value = value;
+    }
+
+    protected void setParent(ConfigurationNodeSource parent) {
+        checkParent(parent);
+        if (this.parent != parent && path == null) {
+            path = getPathElements();
+        }
+        this.parent = parent;
+        if (attached && parent != null) {
+            // The parent's path and this node's name are enough to find the path while attached
+            path = null;
+        }
     }
 
     @Override
     public ConfigurationNode addChild(ConfigurationNode node) {
-        checkAdded();
-        return super.addChild(node);
+        AbstractConfiguration tracker = beginChanges();
+        try {
+            checkAdded();
+            return super.addChild(node);
+        } finally {
+            endChanges(tracker);
+        }
     }
 
     /**
@@ -383,6 +627,41 @@ public class ConfigurationNode extends AbstractConfigurationNodeSource implement
      */
     @Override
     public String[] getPathElements() {
+        String[] path = this.path;
+        if (path != null || parent == null) {
+            return path;
+        }
+        // Count the ancestors without a stored path first, so the path is built in a single array instead of one copy per level
+        int derived = 1;
+        ConfigurationNodeSource source = parent;
+        while (source instanceof ConfigurationNode && ((ConfigurationNode) source).path == null && ((ConfigurationNode) source).parent != null) {
+            ++derived;
+            source = ((ConfigurationNode) source).parent;
+        }
+        String[] base = source.getPathElements();
+        path = new String[base.length + derived];
+        System.arraycopy(base, 0, path, 0, base.length);
+        ConfigurationNode node = this;
+        for (int i = path.length - 1; i >= base.length; --i) {
+            path[i] = node.name;
+            if (i > base.length) {
+                node = (ConfigurationNode) node.parent;
+            }
+        }
         return path;
     }
+
+    /**
+     * @return The path stored in this node, or null if the path is derived from the parent's
+     */
+    String[] getStoredPath() {
+        return path;
+    }
+
+    /**
+     * @return the last element of this node's path, which is the key this node has in its parent
+     */
+    public String getName() {
+        return name;
+    }
 }
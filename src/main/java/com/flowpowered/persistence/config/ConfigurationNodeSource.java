@@ -25,6 +25,7 @@ package com.flowpowered.persistence.config;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 public interface ConfigurationNodeSource {
     /**
@@ -126,6 +127,15 @@ public interface ConfigurationNodeSource {
      */
     public ConfigurationNode getNode(String... path);
 
+    /**
+     * Get a child node of this node source from a pre-split path. Unlike {@link #getNode(String)}, this never splits the path, so it is the preferred way to look up the same path repeatedly.
+     *
+     * @param path The path to get a node at
+     * @return The child node. Never null.
+     * @see #getNode(String...) for more information on how this method behaves.
+     */
+    public ConfigurationNode getNode(NodePath path);
+
     /**
      * Returns whether this node source has children. This is the same as running {@code getChildren().size() > 0}
      *
@@ -141,6 +151,23 @@ public interface ConfigurationNodeSource {
      */
     public boolean hasChild(String key);
 
+    /**
+     * Visits every node below this node source depth-first, parents before their children and children in iteration order. Unlike {@link #getKeys(boolean)}, this builds no collection and no
+     * path strings, so a walk over the whole tree takes time linear in the number of nodes and extra memory proportional to the depth of the tree. The tree must not be changed during the walk.
+     *
+     * @param visitor The visitor to call for every node
+     */
+    public void walk(NodeVisitor visitor);
+
+    /**
+     * Returns the nodes below this node source whose path relative to this node source matches the given pattern, see {@link PathPattern}. The nodes are found lazily while iterating, in a single
+     * walk that skips the subtrees the pattern can't match in, so the tree must not be changed during the iteration.
+     *
+     * @param pattern The pattern to match
+     * @return The matching nodes
+     */
+    public Iterable<ConfigurationNode> getNodes(PathPattern pattern);
+
     /**
      * Returns whether the node at {@code key} exists
      *
@@ -149,6 +176,14 @@ public interface ConfigurationNodeSource {
      */
     public boolean hasNode(String... path);
 
+    /**
+     * Returns whether the node at the pre-split {@code path} exists
+     *
+     * @param path The path to check
+     * @return Whether a node exists at the path
+     */
+    public boolean hasNode(NodePath path);
+
     /**
      * Returns the configuration this node source is attached to. This may return the same object if this {@link ConfigurationNodeSource} is a Configuration.
      *
@@ -162,4 +197,38 @@ public interface ConfigurationNodeSource {
      * @return the elements to here
      */
     public String[] getPathElements();
+
+    /**
+     * Returns the modification stamp of this node source. The stamp increases whenever the value of this node source or of any node below it changes, or nodes are added below it or removed from it.
+     * All changes made by one operation, such as a {@link Configuration#load()} or a {@link Configuration#edit(ConfigurationEditor)}, share one stamp. Stamps only increase, so a value computed from this
+     * node source's subtree outside of such an operation is still valid as long as the stamp is the same as when it was computed.
+     *
+     * @return The modification stamp
+     */
+    public long getVersion();
+
+    /**
+     * Registers a listener for changes to this node source and everything below it. The listener is notified on the thread making the change, once per operation rather than once per changed
+     * node. The registration is tied to this node source's path, so it survives the node being replaced, for example by a reload.
+     *
+     * @param listener The listener to register
+     */
+    public void addListener(ConfigurationListener listener);
+
+    /**
+     * Registers a listener for changes to this node source and everything below it, notifying it on the given executor.
+     *
+     * @param listener The listener to register
+     * @param executor The executor to notify the listener on
+     * @see #addListener(ConfigurationListener)
+     */
+    public void addListener(ConfigurationListener listener, Executor executor);
+
+    /**
+     * Unregisters a listener previously registered on this node source's path.
+     *
+     * @param listener The listener to unregister
+     * @return Whether the listener was registered
+     */
+    public boolean removeListener(ConfigurationListener listener);
 }
@@ -0,0 +1,292 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+/**
+ * A list of operations by path that turns one configuration's contents into another's. Every path stands for the node at it and everything below it, so an added, replaced or removed subtree is
+ * one operation with the subtree's whole value.
+ * <p>
+ * Patches are written to a configuration, in whatever format it stores, as a list of operations under the key {@code operations}. As YAML, a patch looks like this:
+ * <pre>
+ * operations:
+ * -   op: replace
+ *     path:
+ *     - server
+ *     - port
+ *     value: 25566
+ * -   op: remove
+ *     path:
+ *     - debug
+ * </pre>
+ * Paths are lists of elements, so they don't depend on a path separator.
+ */
+public class ConfigurationPatch {
+    private static final String OPERATIONS_KEY = "operations";
+    private static final String KIND_KEY = "op";
+    private static final String PATH_KEY = "path";
+    private static final String VALUE_KEY = "value";
+    private final List<Operation> operations;
+
+    public ConfigurationPatch(List<Operation> operations) {
+        this.operations = Collections.unmodifiableList(new ArrayList<Operation>(operations));
+    }
+
+    /**
+     * @return The operations of this patch, in the order they are applied
+     */
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    /**
+     * @return Whether this patch changes nothing
+     */
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Applies this patch to the given configuration as one {@link Configuration#edit(ConfigurationEditor) edit}, so only the paths of the operations are touched and listeners receive one event
+     * for the whole patch. Added and replaced nodes get the operation's value, with or without a node there before.
+     *
+     * @param config The configuration to apply the patch to
+     */
+    public void apply(Configuration config) {
+        config.edit(new ConfigurationEditor() {
+            @Override
+            public void edit(ConfigurationTransaction transaction) {
+                for (Operation operation : operations) {
+                    if (operation.getKind() == Kind.REMOVE) {
+                        transaction.remove(operation.getPath());
+                    } else {
+                        if (operation.getKind() == Kind.REPLACE && operation.getValue() == null) {
+                            // Setting null keeps a node's children, so a branch that became empty is replaced as a whole
+                            transaction.remove(operation.getPath());
+                        }
+                        transaction.set(operation.getPath(), operation.getValue());
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes this patch to the given configuration and saves it.
+     *
+     * @param out The configuration to write to, for example a {@link com.flowpowered.persistence.config.yaml.YamlConfiguration}
+     * @throws ConfigurationException if the patch can't be saved
+     */
+    public void write(Configuration out) throws ConfigurationException {
+        List<Map<String, Object>> entries = new ArrayList<Map<String, Object>>(operations.size());
+        for (Operation operation : operations) {
+            Map<String, Object> entry = new LinkedHashMap<String, Object>();
+            entry.put(KIND_KEY, operation.getKind().name().toLowerCase());
+            entry.put(PATH_KEY, Arrays.asList(operation.getPath().getElements()));
+            if (operation.getKind() != Kind.REMOVE) {
+                entry.put(VALUE_KEY, operation.getValue());
+            }
+            entries.add(entry);
+        }
+        out.getNode(OPERATIONS_KEY).setValue(entries);
+        out.save();
+    }
+
+    /**
+     * Loads the given configuration and reads the patch written to it by {@link #write(Configuration)}.
+     *
+     * @param in The configuration to read from
+     * @return The patch
+     * @throws ConfigurationException if the patch can't be loaded or is malformed
+     */
+    public static ConfigurationPatch read(Configuration in) throws ConfigurationException {
+        in.load();
+        Object entries = in.getNode(OPERATIONS_KEY).getValue();
+        if (!(entries instanceof List<?>)) {
+            throw new ConfigurationException("Patch has no list of operations: " + entries);
+        }
+        List<Operation> operations = new ArrayList<Operation>();
+        for (Object element : (List<?>) entries) {
+            if (!(element instanceof Map<?, ?>)) {
+                throw new ConfigurationException("Patch operation is not a map: " + element);
+            }
+            Map<?, ?> entry = (Map<?, ?>) element;
+            Kind kind;
+            try {
+                kind = Kind.valueOf(String.valueOf(entry.get(KIND_KEY)).toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new ConfigurationException("Unknown patch operation: " + entry.get(KIND_KEY));
+            }
+            Object path = entry.get(PATH_KEY);
+            if (!(path instanceof List<?>) || ((List<?>) path).isEmpty()) {
+                throw new ConfigurationException("Patch operation has no path: " + entry);
+            }
+            String[] elements = new String[((List<?>) path).size()];
+            for (int i = 0; i < elements.length; ++i) {
+                elements[i] = String.valueOf(((List<?>) path).get(i));
+            }
+            operations.add(new Operation(kind, new NodePath(elements), kind == Kind.REMOVE ? null : entry.get(VALUE_KEY)));
+        }
+        return new ConfigurationPatch(operations);
+    }
+
+    /**
+     * Computes the patch that turns the contents of one configuration into those of another. Subtrees with equal {@link AbstractConfigurationNodeSource#getContentHash() content hashes} are
+     * skipped without being walked, so comparing two configurations that share most of their contents only visits the paths that differ once the hashes are kept.
+     *
+     * @param from The configuration to start from
+     * @param to The configuration to end up with
+     * @return The operations that turn {@code from} into {@code to}
+     */
+    public static ConfigurationPatch diff(Configuration from, Configuration to) {
+        List<Operation> operations = new ArrayList<Operation>();
+        diff(ArrayUtils.EMPTY_STRING_ARRAY, from, to, operations);
+        return new ConfigurationPatch(operations);
+    }
+
+    private static void diff(String[] path, ConfigurationNodeSource from, ConfigurationNodeSource to, List<Operation> operations) {
+        Map<String, ConfigurationNode> oldChildren = from.getChildren();
+        Map<String, ConfigurationNode> newChildren = to.getChildren();
+        for (String key : oldChildren.keySet()) {
+            if (!newChildren.containsKey(key)) {
+                operations.add(new Operation(Kind.REMOVE, new NodePath(ArrayUtils.add(path, key)), null));
+            }
+        }
+        for (Map.Entry<String, ConfigurationNode> entry : newChildren.entrySet()) {
+            ConfigurationNode newNode = entry.getValue();
+            ConfigurationNode oldNode = oldChildren.get(entry.getKey());
+            String[] childPath = ArrayUtils.add(path, entry.getKey());
+            if (oldNode == null) {
+                operations.add(new Operation(Kind.ADD, new NodePath(childPath), newNode.getValue()));
+            } else if (sameContents(oldNode, newNode)) {
+                continue;
+            } else if (oldNode.hasChildren() && newNode.hasChildren()) {
+                diff(childPath, oldNode, newNode, operations);
+            } else {
+                operations.add(new Operation(Kind.REPLACE, new NodePath(childPath), newNode.getValue()));
+            }
+        }
+    }
+
+    private static boolean sameContents(ConfigurationNode a, ConfigurationNode b) {
+        if (!a.hasChildren() && !b.hasChildren()) {
+            // Leaves are cheap to compare, so a hash collision never hides a changed value
+            return a.contentEquals(b);
+        }
+        // Hashing nodes that don't keep their hashes means walking them, so they are descended into instead
+        return a.tracksContentHash() && b.tracksContentHash() && a.getContentHash() == b.getContentHash();
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigurationPatch" + operations;
+    }
+
+    /**
+     * What an operation of a patch does to the node at its path.
+     */
+    public enum Kind {
+        /**
+         * Adds a node that did not exist
+         */
+        ADD,
+        /**
+         * Replaces the value of an existing node
+         */
+        REPLACE,
+        /**
+         * Removes a node
+         */
+        REMOVE
+    }
+
+    /**
+     * One operation of a patch.
+     */
+    public static final class Operation {
+        private final Kind kind;
+        private final NodePath path;
+        private final Object value;
+
+        public Operation(Kind kind, NodePath path, Object value) {
+            if (kind == null || path == null) {
+                throw new IllegalArgumentException("Kind and path must not be null!");
+            }
+            this.kind = kind;
+            this.path = path;
+            this.value = value;
+        }
+
+        /**
+         * @return What this operation does
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return The path of the node this operation applies to
+         */
+        public NodePath getPath() {
+            return path;
+        }
+
+        /**
+         * @return The new value of the node, which is a map for a node with children, or null for a removal
+         */
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Operation)) {
+                return false;
+            }
+            Operation other = (Operation) o;
+            return kind == other.kind && path.equals(other.path) && (value == null ? other.value == null : value.equals(other.value));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * kind.hashCode() + path.hashCode()) + (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + path + (kind == Kind.REMOVE ? "" : " = " + value);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+/**
+ * A read-only copy of a configuration's node structure, created with {@link Configuration#snapshot()}. The snapshot is fully built before the constructor returns and never changes afterwards, so it
+ * can be shared between threads without locking once it has been safely published, for example through a {@link ConfigurationSnapshotHolder}. Collections and arrays stored as values are copied
+ * too, and collections are returned unmodifiable. Since nothing in a snapshot changes, the maps returned by {@link #getValues()} are built once and then cached.
+ */
+public class ConfigurationSnapshot extends AbstractConfiguration {
+    private final boolean readOnly;
+    /**
+     * The number of nodes copied from the source
+     */
+    private final int nodeCount;
+
+    public ConfigurationSnapshot(Configuration source) {
+        super();
+        setPathSeparator(source.getPathSeparator());
+        setWritesDefaults(false);
+        setCachesValues(true);
+        if (source instanceof AbstractConfiguration) {
+            setChildStorage(((AbstractConfiguration) source).getChildStorage());
+        }
+        nodeCount = copyChildren(source, this);
+        for (Map.Entry<NodePath, Object> entry : source.getDefaults().entrySet()) {
+            setDefault(entry.getKey(), copyValue(entry.getValue()));
+        }
+        if (source instanceof AbstractConfiguration && ((AbstractConfiguration) source).isIndexed()) {
+            setIndexed(true);
+        }
+        if (source instanceof AbstractConfiguration && ((AbstractConfiguration) source).isSorted()) {
+            setSorted(true);
+        }
+        readOnly = true;
+    }
+
+    /**
+     * Copies the children of a node source, and everything below them, to another node source.
+     *
+     * @param from The node source to copy from
+     * @param to The node source to copy to
+     * @return The number of copied nodes
+     */
+    private static int copyChildren(ConfigurationNodeSource from, AbstractConfigurationNodeSource to) {
+        int count = 0;
+        for (Map.Entry<String, ConfigurationNode> entry : from.getChildren().entrySet()) {
+            ConfigurationNode node = entry.getValue();
+            ConfigurationNode copy = new ConfigurationNode(to.getConfiguration(), ArrayUtils.add(to.getPathElements(), entry.getKey()), null);
+            to.addChild(copy);
+            ++count;
+            if (node.hasChildren()) {
+                count += copyChildren(node, copy);
+            } else {
+                copy.setValue(copyValue(node.getValue()));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of nodes this snapshot copied from its source.
+     *
+     * @return The number of nodes
+     */
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Copies a value so that later changes to the original can't be seen through the snapshot.
+     *
+     * @param value The value to copy
+     * @return The copied value
+     */
+    private static Object copyValue(Object value) {
+        if (value instanceof List<?>) {
+            List<Object> copy = new ArrayList<Object>(((List<?>) value).size());
+            for (Object item : (List<?>) value) {
+                copy.add(copyValue(item));
+            }
+            return Collections.unmodifiableList(copy);
+        } else if (value instanceof Set<?>) {
+            Set<Object> copy = new LinkedHashSet<Object>();
+            for (Object item : (Set<?>) value) {
+                copy.add(copyValue(item));
+            }
+            return Collections.unmodifiableSet(copy);
+        } else if (value instanceof Collection<?>) {
+            List<Object> copy = new ArrayList<Object>(((Collection<?>) value).size());
+            for (Object item : (Collection<?>) value) {
+                copy.add(copyValue(item));
+            }
+            return Collections.unmodifiableCollection(copy);
+        } else if (value instanceof Map<?, ?>) {
+            Map<Object, Object> copy = new LinkedHashMap<Object, Object>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), copyValue(entry.getValue()));
+            }
+            return Collections.unmodifiableMap(copy);
+        } else if (value != null && value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+            System.arraycopy(value, 0, copy, 0, length);
+            return copy;
+        }
+        return value;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public ConfigurationSnapshot snapshot() {
+        return this;
+    }
+
+    @Override
+    public void load() throws ConfigurationException {
+        checkWritable();
+        super.load();
+    }
+
+    @Override
+    public ReloadResult reload() throws ConfigurationException {
+        checkWritable();
+        return super.reload();
+    }
+
+    @Override
+    public void save() throws ConfigurationException {
+        throw new UnsupportedOperationException("A ConfigurationSnapshot can't be saved!");
+    }
+
+    @Override
+    public void setPathSeparator(String pathSeparator) {
+        checkWritable();
+        super.setPathSeparator(pathSeparator);
+    }
+
+    @Override
+    public void setWritesDefaults(boolean writesDefaults) {
+        checkWritable();
+        super.setWritesDefaults(writesDefaults);
+    }
+
+    @Override
+    public void applyDefaults() {
+        checkWritable();
+        super.applyDefaults();
+    }
+
+    @Override
+    protected Map<String, ConfigurationNode> loadToNodes() throws ConfigurationException {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    protected void saveFromNodes(Map<String, ConfigurationNode> nodes) throws ConfigurationException {
+        throw new UnsupportedOperationException("A ConfigurationSnapshot can't be saved!");
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the latest {@link ConfigurationSnapshot} of a configuration. Readers call {@link #get()}, which never blocks and always returns a complete snapshot, while a single writer at a time reloads
+ * or modifies the underlying configuration and publishes a new snapshot once it is done.
+ */
+public class ConfigurationSnapshotHolder {
+    private final Configuration configuration;
+    private final AtomicReference<ConfigurationSnapshot> snapshot;
+
+    /**
+     * Creates a holder for the configuration, publishing a snapshot of its current state.
+     *
+     * @param configuration The configuration to take snapshots of
+     */
+    public ConfigurationSnapshotHolder(Configuration configuration) {
+        this.configuration = configuration;
+        this.snapshot = new AtomicReference<ConfigurationSnapshot>(configuration.snapshot());
+    }
+
+    /**
+     * Returns the configuration snapshots are taken of. Changes made to it are only visible to readers after the next {@link #publish()}.
+     *
+     * @return The underlying configuration
+     */
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Returns the latest published snapshot.
+     *
+     * @return The current snapshot
+     */
+    public ConfigurationSnapshot get() {
+        return snapshot.get();
+    }
+
+    /**
+     * Takes a snapshot of the configuration's current state and makes it the current snapshot.
+     *
+     * @return The published snapshot
+     */
+    public synchronized ConfigurationSnapshot publish() {
+        ConfigurationSnapshot published = configuration.snapshot();
+        snapshot.set(published);
+        return published;
+    }
+
+    /**
+     * Applies a batch of changes to the configuration and publishes a snapshot of the result, so readers see either none or all of the changes.
+     *
+     * @param editor The editor recording the changes
+     * @return The published snapshot
+     */
+    public synchronized ConfigurationSnapshot edit(ConfigurationEditor editor) {
+        configuration.edit(editor);
+        return publish();
+    }
+
+    /**
+     * Loads the configuration and publishes a snapshot of the result. If loading fails, the previous snapshot stays published.
+     *
+     * @return The published snapshot
+     * @throws ConfigurationException if an error occurs while loading the configuration
+     */
+    public synchronized ConfigurationSnapshot reload() throws ConfigurationException {
+        configuration.load();
+        return publish();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the puts and removes of one {@link Configuration#edit(ConfigurationEditor)} call. The operations are merged into a tree by path, so applying them walks every shared part of their
+ * paths only once. Later operations win over earlier ones on the same node, exactly as if they had been applied one after another.
+ */
+public class ConfigurationTransaction {
+    private final Configuration configuration;
+    private final Operation root = new Operation();
+
+    ConfigurationTransaction(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Sets the value of the node at the given path, splitting it with the configuration's path separator.
+     *
+     * @param path The path of the node
+     * @param value The value to set. A map replaces the node's children like {@link ConfigurationNode#setValue(Object)} does
+     * @return This transaction
+     */
+    public ConfigurationTransaction set(String path, Object value) {
+        return set(configuration.splitNodePath(path), value);
+    }
+
+    /**
+     * Sets the value of the node at the given path.
+     *
+     * @param path The path of the node
+     * @param value The value to set
+     * @return This transaction
+     * @see #set(String, Object)
+     */
+    public ConfigurationTransaction set(NodePath path, Object value) {
+        return set(path.elements(), value);
+    }
+
+    /**
+     * Removes the node at the given path, splitting it with the configuration's path separator.
+     *
+     * @param path The path of the node
+     * @return This transaction
+     */
+    public ConfigurationTransaction remove(String path) {
+        return remove(configuration.splitNodePath(path));
+    }
+
+    /**
+     * Removes the node at the given path.
+     *
+     * @param path The path of the node
+     * @return This transaction
+     */
+    public ConfigurationTransaction remove(NodePath path) {
+        return remove(path.elements());
+    }
+
+    private ConfigurationTransaction set(String[] path, Object value) {
+        Operation operation = getOperation(path);
+        operation.set = true;
+        operation.value = value;
+        // The value replaces everything earlier operations did below the node
+        operation.children = null;
+        return this;
+    }
+
+    private ConfigurationTransaction remove(String[] path) {
+        Operation operation = getOperation(path);
+        operation.remove = true;
+        operation.set = false;
+        operation.value = null;
+        operation.children = null;
+        return this;
+    }
+
+    private Operation getOperation(String[] path) {
+        path = configuration.ensureCorrectPath(path);
+        if (path.length == 0) {
+            throw new IllegalArgumentException("Path must not be empty!");
+        }
+        Operation operation = root;
+        for (String element : path) {
+            if (element == null) {
+                throw new IllegalArgumentException("Path elements must not be null!");
+            }
+            operation = operation.getChild(element);
+        }
+        return operation;
+    }
+
+    /**
+     * @return Whether no operation was recorded
+     */
+    public boolean isEmpty() {
+        return root.children == null;
+    }
+
+    Operation getRoot() {
+        return root;
+    }
+
+    /**
+     * @return The paths of the nodes that are removed or set, leaving out the nodes below them
+     */
+    Set<NodePath> getPaths() {
+        Set<NodePath> paths = new LinkedHashSet<NodePath>();
+        collectPaths(root, new String[0], paths);
+        return paths;
+    }
+
+    private static void collectPaths(Operation operation, String[] path, Set<NodePath> paths) {
+        for (Map.Entry<String, Operation> entry : operation.children.entrySet()) {
+            String[] childPath = Arrays.copyOf(path, path.length + 1);
+            childPath[path.length] = entry.getKey();
+            Operation child = entry.getValue();
+            if (child.remove || child.set) {
+                paths.add(new NodePath(childPath));
+            } else if (child.children != null) {
+                collectPaths(child, childPath, paths);
+            }
+        }
+    }
+
+    /**
+     * The operations on one node. A node is first removed if {@link #remove} is set, then given {@link #value} if {@link #set} is set, and then the operations on its children are applied.
+     */
+    static class Operation {
+        boolean remove;
+        boolean set;
+        Object value;
+        Map<String, Operation> children;
+
+        Operation getChild(String name) {
+            if (children == null) {
+                children = new LinkedHashMap<String, Operation>();
+            }
+            Operation child = children.get(name);
+            if (child == null) {
+                child = new Operation();
+                children.put(name, child);
+            }
+            return child;
+        }
+    }
+}
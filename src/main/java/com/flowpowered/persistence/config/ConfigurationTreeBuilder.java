@@ -0,0 +1,183 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+import com.flowpowered.persistence.data.ValueHolder;
+
+/**
+ * Builds whole subtrees of nodes below a node source in one pass and attaches them with a single operation. Nodes are created and linked to their parents directly, without the path copies, cycle
+ * checks, attach checks and change notifications {@link ConfigurationNodeSource#addChild(ConfigurationNode)} performs for every node; only the top-level nodes go through it when the subtrees are
+ * attached. Values can be given as nested maps with {@link #putAll(Map)}, or streamed from a source such as a parser with {@link #begin(String)}, {@link #value(String, Object)} and {@link #end()}.
+ * <p>
+ * The built nodes must not be used before they are attached, either by {@link #attach()} or, for loaders returning nodes from {@link AbstractConfiguration#loadToNodes()}, by the configuration.
+ */
+public class ConfigurationTreeBuilder {
+    private final AbstractConfigurationNodeSource target;
+    private final Map<String, ConfigurationNode> nodes = new LinkedHashMap<String, ConfigurationNode>();
+    /**
+     * The nodes {@link #begin(String)} was called for and {@link #end()} wasn't yet, innermost last
+     */
+    private final List<ConfigurationNode> open = new ArrayList<ConfigurationNode>();
+    private ConfigurationNode last;
+
+    /**
+     * Creates a builder for subtrees below the given node source.
+     *
+     * @param target The node source the built subtrees are attached to
+     */
+    public ConfigurationTreeBuilder(AbstractConfigurationNodeSource target) {
+        if (target == null) {
+            throw new IllegalArgumentException("Target must not be null!");
+        }
+        this.target = target;
+    }
+
+    /**
+     * Starts a node with children below the current node, which becomes the current node until {@link #end()} is called.
+     *
+     * @param name The name of the node
+     * @return This builder
+     */
+    public ConfigurationTreeBuilder begin(String name) {
+        open.add(create(name));
+        return this;
+    }
+
+    /**
+     * Finishes the current node started with {@link #begin(String)}, so its parent becomes the current node again.
+     *
+     * @return This builder
+     */
+    public ConfigurationTreeBuilder end() {
+        if (open.isEmpty()) {
+            throw new IllegalStateException("No node was begun!");
+        }
+        open.remove(open.size() - 1);
+        return this;
+    }
+
+    /**
+     * Adds a node with the given value below the current node. A map value is expanded into child nodes, like {@link ConfigurationNode#setValue(Object)} does.
+     *
+     * @param name The name of the node
+     * @param value The value of the node
+     * @return This builder
+     */
+    public ConfigurationTreeBuilder value(String name, Object value) {
+        build(create(name), value);
+        return this;
+    }
+
+    /**
+     * Adds a node for every entry of the given map below the current node.
+     *
+     * @param values The values by node name
+     * @return This builder
+     */
+    public ConfigurationTreeBuilder putAll(Map<?, ?> values) {
+        for (Map.Entry<?, ?> entry : values.entrySet()) {
+            value(entry.getKey().toString(), entry.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Returns the node most recently created by {@link #begin(String)} or {@link #value(String, Object)}, so loaders can set format specific data such as comments on it. The node isn't attached
+     * yet, so it must not be changed through methods that attach it, like {@link ConfigurationNode#setValue(Object)}.
+     *
+     * @return The last created node, or null if no node was created yet
+     */
+    public ConfigurationNode getLastNode() {
+        return last;
+    }
+
+    /**
+     * Returns the built top-level nodes without attaching them, for loaders that hand their nodes to the configuration. Nodes begun with {@link #begin(String)} must have been ended.
+     *
+     * @return The built top-level nodes by name
+     */
+    public Map<String, ConfigurationNode> build() {
+        if (!open.isEmpty()) {
+            throw new IllegalStateException("Not every begun node was ended!");
+        }
+        Map<String, ConfigurationNode> built = new LinkedHashMap<String, ConfigurationNode>(nodes);
+        nodes.clear();
+        return built;
+    }
+
+    /**
+     * Attaches the built nodes to the target, replacing existing children of the same names. Listeners receive one event for all attached nodes.
+     */
+    public void attach() {
+        Map<String, ConfigurationNode> built = build();
+        AbstractConfiguration tracker = target.beginChanges();
+        try {
+            for (ConfigurationNode node : built.values()) {
+                target.addChild(node);
+            }
+        } finally {
+            AbstractConfigurationNodeSource.endChanges(tracker);
+        }
+    }
+
+    /**
+     * Creates a node below the current node. Top-level nodes keep their full path until they are attached; nodes below them are linked to their parent right away and derive their path from it.
+     *
+     * @param name The name of the node
+     * @return The new node
+     */
+    private ConfigurationNode create(String name) {
+        if (open.isEmpty()) {
+            last = target.createConfigurationNode(ArrayUtils.add(target.getPathElements(), name), null);
+            nodes.put(name, last);
+            return last;
+        }
+        ConfigurationNode parent = open.get(open.size() - 1);
+        last = parent.createConfigurationNode(new String[] {name}, null);
+        parent.linkChild(last);
+        return last;
+    }
+
+    private static void build(ConfigurationNode node, Object value) {
+        if (value instanceof ValueHolder) {
+            value = ((ValueHolder) value).getValue();
+        }
+        if (value instanceof Map<?, ?>) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                ConfigurationNode child = node.createConfigurationNode(new String[] {entry.getKey().toString()}, null);
+                node.linkChild(child);
+                build(child, entry.getValue());
+            }
+        } else {
+            node.initValue(value);
+        }
+    }
+}
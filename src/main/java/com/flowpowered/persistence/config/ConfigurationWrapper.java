@@ -25,6 +25,7 @@ package com.flowpowered.persistence.config;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 
 /**
@@ -63,6 +64,41 @@ public abstract class ConfigurationWrapper implements Configuration {
         getConfiguration().save();
     }
 
+    @Override
+    public ConfigurationSnapshot snapshot() {
+        return getConfiguration().snapshot();
+    }
+
+    @Override
+    public FrozenConfiguration freeze() {
+        return getConfiguration().freeze();
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return getConfiguration().isReadOnly();
+    }
+
+    @Override
+    public void edit(ConfigurationEditor editor) {
+        getConfiguration().edit(editor);
+    }
+
+    @Override
+    public boolean isDirty() {
+        return getConfiguration().isDirty();
+    }
+
+    @Override
+    public void markClean() {
+        getConfiguration().markClean();
+    }
+
+    @Override
+    public void markDirty() {
+        getConfiguration().markDirty();
+    }
+
     @Override
     public void setNode(ConfigurationNode node) {
         getConfiguration().setNode(node);
@@ -93,11 +129,36 @@ public abstract class ConfigurationWrapper implements Configuration {
         getConfiguration().setWritesDefaults(writesDefaults);
     }
 
+    @Override
+    public void setDefault(NodePath path, Object value) {
+        getConfiguration().setDefault(path, value);
+    }
+
+    @Override
+    public Object getDefault(NodePath path) {
+        return getConfiguration().getDefault(path);
+    }
+
+    @Override
+    public Map<NodePath, Object> getDefaults() {
+        return getConfiguration().getDefaults();
+    }
+
+    @Override
+    public void applyDefaults() {
+        getConfiguration().applyDefaults();
+    }
+
     @Override
     public String[] splitNodePath(String path) {
         return getConfiguration().splitNodePath(path);
     }
 
+    @Override
+    public NodePath compilePath(String path) {
+        return getConfiguration().compilePath(path);
+    }
+
     @Override
     public String[] ensureCorrectPath(String[] rawPath) {
         return getConfiguration().ensureCorrectPath(rawPath);
@@ -153,6 +214,16 @@ public abstract class ConfigurationWrapper implements Configuration {
         return getConfiguration().getKeys(deep);
     }
 
+    @Override
+    public void walk(NodeVisitor visitor) {
+        getConfiguration().walk(visitor);
+    }
+
+    @Override
+    public Iterable<ConfigurationNode> getNodes(PathPattern pattern) {
+        return getConfiguration().getNodes(pattern);
+    }
+
     @Override
     public ConfigurationNode getNode(String path) {
         return getConfiguration().getNode(path);
@@ -163,6 +234,11 @@ public abstract class ConfigurationWrapper implements Configuration {
         return getConfiguration().getNode(path);
     }
 
+    @Override
+    public ConfigurationNode getNode(NodePath path) {
+        return getConfiguration().getNode(path);
+    }
+
     @Override
     public boolean hasChildren() {
         return getConfiguration().hasChildren();
@@ -178,8 +254,33 @@ public abstract class ConfigurationWrapper implements Configuration {
         return getConfiguration().hasNode(path);
     }
 
+    @Override
+    public boolean hasNode(NodePath path) {
+        return getConfiguration().hasNode(path);
+    }
+
     @Override
     public String[] getPathElements() {
         return getConfiguration().getPathElements();
     }
+
+    @Override
+    public long getVersion() {
+        return getConfiguration().getVersion();
+    }
+
+    @Override
+    public void addListener(ConfigurationListener listener) {
+        getConfiguration().addListener(listener);
+    }
+
+    @Override
+    public void addListener(ConfigurationListener listener, Executor executor) {
+        getConfiguration().addListener(listener, executor);
+    }
+
+    @Override
+    public boolean removeListener(ConfigurationListener listener) {
+        return getConfiguration().removeListener(listener);
+    }
 }
@@ -0,0 +1,217 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.Arrays;
+
+import com.flowpowered.persistence.CastUtils;
+
+/**
+ * A snapshot compiled for reading, created with {@link Configuration#freeze()}. Besides the node structure of a {@link ConfigurationSnapshot}, it keeps every path in a flat open-addressed table keyed
+ * by the hash of the joined path. Lookups by path string, path elements or {@link NodePath} are answered with one probe sequence instead of a walk over the child maps, and don't split or compile
+ * the path first. The hash of a path given as elements is computed from the elements' own hashes, so it equals the hash of the joined string without building it.
+ * <p>
+ * Values stored as numeric or boolean strings are coerced when freezing, so the primitive getters of the nodes never parse. Like any snapshot, a frozen configuration rejects modifications and can be
+ * read from any number of threads without locking.
+ */
+public class FrozenConfiguration extends ConfigurationSnapshot {
+    /**
+     * Powers of 31 for the lengths of most path elements, so appending an element to a hash needs no loop
+     */
+    private static final int[] POWERS_OF_31 = new int[64];
+    private final String separator;
+    private final int separatorPower;
+    private final int mask;
+    private final int[] hashes;
+    private final String[] keys;
+    private final String[][] elements;
+    private final ConfigurationNode[] nodes;
+
+    static {
+        POWERS_OF_31[0] = 1;
+        for (int i = 1; i < POWERS_OF_31.length; ++i) {
+            POWERS_OF_31[i] = POWERS_OF_31[i - 1] * 31;
+        }
+    }
+
+    public FrozenConfiguration(Configuration source) {
+        super(source);
+        separator = getPathSeparator();
+        separatorPower = powerOf31(separator.length());
+        final int size = getNodeCount();
+        int capacity = 16;
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+        mask = capacity - 1;
+        hashes = new int[capacity];
+        keys = new String[capacity];
+        elements = new String[capacity][];
+        nodes = new ConfigurationNode[capacity];
+        walk(new NodeVisitor() {
+            @Override
+            public boolean visit(CharSequence path, ConfigurationNode node) {
+                String key = path.toString();
+                int hash = key.hashCode();
+                int index = spread(hash) & mask;
+                while (nodes[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                hashes[index] = hash;
+                keys[index] = key;
+                elements[index] = node.getPathElements();
+                nodes[index] = node;
+                coerce(node);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Coerces a string value that holds a number or a boolean, so reading it through the primitive getters doesn't parse it.
+     *
+     * @param node The node to coerce the value of
+     */
+    private static void coerce(ConfigurationNode node) {
+        Object value = node.getRawValue();
+        if (!(value instanceof String) || node.hasChildren()) {
+            return;
+        }
+        if (CastUtils.castDouble(value) != null) {
+            node.getInt(0);
+            node.getLong(0);
+            node.getDouble(0);
+        } else if ("true".equalsIgnoreCase((String) value) || "false".equalsIgnoreCase((String) value)) {
+            node.getBoolean(false);
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int powerOf31(int exponent) {
+        if (exponent < POWERS_OF_31.length) {
+            return POWERS_OF_31[exponent];
+        }
+        int result = 1;
+        int base = 31;
+        for (; exponent > 0; exponent >>= 1) {
+            if ((exponent & 1) != 0) {
+                result *= base;
+            }
+            base *= base;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the hash the given elements would have as a string joined with the path separator.
+     *
+     * @param path The path elements
+     * @return The hash of the joined path
+     */
+    private int hash(String[] path) {
+        int hash = 0;
+        for (int i = 0; i < path.length; ++i) {
+            if (i > 0) {
+                hash = hash * separatorPower + separator.hashCode();
+            }
+            hash = hash * powerOf31(path[i].length()) + path[i].hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * Looks up the node at the given joined path.
+     *
+     * @param path The path joined with the path separator
+     * @return The node, or null if there is none
+     */
+    private ConfigurationNode find(String path) {
+        int hash = path.hashCode();
+        for (int index = spread(hash) & mask; nodes[index] != null; index = (index + 1) & mask) {
+            if (hashes[index] == hash && keys[index].equals(path)) {
+                return nodes[index];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks up the node at the given path elements.
+     *
+     * @param path The path elements
+     * @return The node, or null if there is none
+     */
+    private ConfigurationNode find(String[] path) {
+        int hash = hash(path);
+        for (int index = spread(hash) & mask; nodes[index] != null; index = (index + 1) & mask) {
+            if (hashes[index] == hash && Arrays.equals(elements[index], path)) {
+                return nodes[index];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public FrozenConfiguration freeze() {
+        return this;
+    }
+
+    @Override
+    public ConfigurationNode getNode(String path) {
+        ConfigurationNode node = find(path);
+        return node != null ? node : super.getNode(path);
+    }
+
+    @Override
+    public ConfigurationNode getNode(String... path) {
+        if (path.length == 0) {
+            throw new IllegalArgumentException("Path must not be empty!");
+        }
+        path = ensureCorrectPath(path);
+        ConfigurationNode node = find(path);
+        return node != null ? node : super.getNode(path);
+    }
+
+    @Override
+    public ConfigurationNode getNode(NodePath path) {
+        ConfigurationNode node = find(path.elements());
+        return node != null ? node : super.getNode(path);
+    }
+
+    @Override
+    public boolean hasNode(String... path) {
+        if (path.length == 0) {
+            throw new IllegalArgumentException("Path must not be empty!");
+        }
+        return find(ensureCorrectPath(path)) != null;
+    }
+
+    @Override
+    public boolean hasNode(NodePath path) {
+        return find(path.elements()) != null;
+    }
+}
@@ -0,0 +1,592 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+/**
+ * A stack of configurations read as one, such as bundled defaults below a site file below a per-host file. Lookups return the node of the highest layer that has the path, and a layer whose node
+ * at a parent path has a value instead of children hides the lower layers below that path, the same way {@link #getValues()} merges the layers. The wrapped configuration is the top layer: it is the
+ * one saved and the one edits and writes go to, so overrides end up in the top layer. A lookup that resolves to a lower layer returns a handle that reads that layer's node and writes to the
+ * top layer, so setting a value bundled in a lower layer overrides it instead of changing the lower layer.
+ * <p>
+ * Resolved lookups are cached by path together with the modification stamps of the layers they depend on, which are the layers down to the one that resolved them. A cached lookup is reused until
+ * one of those layers changes, so once a path was resolved, looking it up costs about the same as in a single configuration. All layers should use the same path separator.
+ */
+public class LayeredConfiguration extends ConfigurationWrapper {
+    /**
+     * The maximum amount of paths whose resolved node is cached
+     */
+    private static final int MAX_RESOLVED_PATHS = 4096;
+    private final Configuration[] layers;
+    private final ConcurrentMap<NodePath, Resolution> resolved = new ConcurrentHashMap<NodePath, Resolution>();
+
+    /**
+     * Creates a layered configuration from the given layers, highest priority first.
+     *
+     * @param layers The layers, the first of which is the top layer
+     */
+    public LayeredConfiguration(Configuration... layers) {
+        super(layers.length == 0 ? null : layers[0]);
+        if (layers.length == 0) {
+            throw new IllegalArgumentException("A LayeredConfiguration needs at least one layer!");
+        }
+        for (Configuration layer : layers) {
+            if (layer == null) {
+                throw new IllegalArgumentException("Layers must not be null!");
+            }
+        }
+        this.layers = layers.clone();
+    }
+
+    /**
+     * Returns the layers of this configuration, highest priority first.
+     *
+     * @return An unmodifiable list of the layers
+     */
+    public List<Configuration> getLayers() {
+        return Collections.unmodifiableList(Arrays.asList(layers));
+    }
+
+    /**
+     * Replaces the top layer.
+     *
+     * @param config The new top layer
+     */
+    @Override
+    public void setConfiguration(Configuration config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Layers must not be null!");
+        }
+        super.setConfiguration(config);
+        layers[0] = config;
+        resolved.clear();
+    }
+
+    /**
+     * Loads every layer, lowest priority first.
+     *
+     * @throws ConfigurationException if a layer fails to load
+     */
+    @Override
+    public void load() throws ConfigurationException {
+        for (int i = layers.length - 1; i >= 0; --i) {
+            layers[i].load();
+        }
+    }
+
+    /**
+     * Creates a snapshot of the merged values of all layers.
+     *
+     * @return A read-only snapshot of the merged layers
+     */
+    @Override
+    public ConfigurationSnapshot snapshot() {
+        return merge().snapshot();
+    }
+
+    /**
+     * Freezes the merged values of all layers.
+     *
+     * @return A frozen copy of the merged layers
+     */
+    @Override
+    public FrozenConfiguration freeze() {
+        return merge().freeze();
+    }
+
+    /**
+     * Copies the merged values of all layers into a single configuration.
+     *
+     * @return The merged configuration
+     */
+    private Configuration merge() {
+        MapConfiguration merged = new MapConfiguration(getValues());
+        merged.setPathSeparator(getPathSeparator());
+        try {
+            merged.load();
+        } catch (ConfigurationException e) {
+            throw new IllegalStateException("Merged values could not be loaded", e);
+        }
+        return merged;
+    }
+
+    /**
+     * Returns a stamp that changes whenever any layer is modified.
+     *
+     * @return The sum of the layers' modification stamps
+     */
+    @Override
+    public long getVersion() {
+        long version = 0;
+        for (Configuration layer : layers) {
+            version += layer.getVersion();
+        }
+        return version;
+    }
+
+    @Override
+    public ConfigurationNode getNode(String path) {
+        return getNode(compilePath(path));
+    }
+
+    @Override
+    public ConfigurationNode getNode(String... path) {
+        if (path.length == 0) {
+            throw new IllegalArgumentException("Path must not be empty!");
+        }
+        return getNode(new NodePath(ensureCorrectPath(path)));
+    }
+
+    @Override
+    public ConfigurationNode getNode(NodePath path) {
+        ConfigurationNode node = resolve(path).node;
+        return node != null ? node : layers[0].getNode(path);
+    }
+
+    @Override
+    public boolean hasNode(String... path) {
+        if (path.length == 0) {
+            throw new IllegalArgumentException("Path must not be empty!");
+        }
+        return hasNode(new NodePath(ensureCorrectPath(path)));
+    }
+
+    @Override
+    public boolean hasNode(NodePath path) {
+        return resolve(path).node != null;
+    }
+
+    @Override
+    public ConfigurationNode getChild(String name) {
+        return getChild(name, false);
+    }
+
+    @Override
+    public ConfigurationNode getChild(String name, boolean add) {
+        ConfigurationNode node = resolve(new NodePath(new String[] {name})).node;
+        return node != null ? node : layers[0].getChild(name, add);
+    }
+
+    @Override
+    public boolean hasChild(String key) {
+        for (Configuration layer : layers) {
+            if (layer.hasChild(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasChildren() {
+        for (Configuration layer : layers) {
+            if (layer.hasChildren()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Map<String, ConfigurationNode> getChildren() {
+        Map<String, ConfigurationNode> children = new LinkedHashMap<String, ConfigurationNode>();
+        for (Configuration layer : layers) {
+            for (String key : layer.getChildren().keySet()) {
+                if (!children.containsKey(key)) {
+                    children.put(key, getChild(key));
+                }
+            }
+        }
+        return Collections.unmodifiableMap(children);
+    }
+
+    @Override
+    public Map<String, Object> getValues() {
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        for (int i = layers.length - 1; i >= 0; --i) {
+            merge(values, layers[i].getValues());
+        }
+        return values;
+    }
+
+    /**
+     * Merges the values of a higher layer into the values of the layers below it. Maps present in both are merged recursively, anything else in the higher layer replaces the lower value.
+     *
+     * @param target The merged values of the lower layers
+     * @param source The values of the higher layer
+     */
+    @SuppressWarnings ("unchecked")
+    private static void merge(Map<String, Object> target, Map<?, ?> source) {
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            String key = entry.getKey().toString();
+            Object existing = target.get(key);
+            Object value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            if (existing instanceof Map<?, ?> && value instanceof Map<?, ?>) {
+                // The lower layer's map may be a cached, unmodifiable one
+                Map<String, Object> merged = new LinkedHashMap<String, Object>((Map<String, Object>) existing);
+                merge(merged, (Map<?, ?>) value);
+                value = merged;
+            }
+            target.put(key, value);
+        }
+    }
+
+    @Override
+    public Set<String> getKeys(boolean deep) {
+        if (!deep) {
+            return getChildren().keySet();
+        }
+        final Set<String> keys = new LinkedHashSet<String>();
+        walk(new NodeVisitor() {
+            @Override
+            public boolean visit(CharSequence path, ConfigurationNode node) {
+                keys.add(path.toString());
+                return true;
+            }
+        });
+        return keys;
+    }
+
+    /**
+     * Matches the pattern against the merged children of all layers. Below them, the pattern is matched against the children of the node lookups return, which belong to a single layer.
+     *
+     * @param pattern The pattern to match
+     * @return The matching nodes
+     */
+    @Override
+    public Iterable<ConfigurationNode> getNodes(PathPattern pattern) {
+        return pattern.match(this);
+    }
+
+    /**
+     * Walks the merged nodes of all layers. Each path is visited once, with the node of the highest layer that has it.
+     *
+     * @param visitor The visitor to call for each node
+     */
+    @Override
+    public void walk(NodeVisitor visitor) {
+        walk(Arrays.<ConfigurationNodeSource>asList(layers), new StringBuilder(), visitor);
+    }
+
+    private void walk(List<? extends ConfigurationNodeSource> sources, StringBuilder path, NodeVisitor visitor) {
+        Map<String, List<ConfigurationNode>> children = new LinkedHashMap<String, List<ConfigurationNode>>();
+        for (ConfigurationNodeSource source : sources) {
+            for (Map.Entry<String, ConfigurationNode> entry : source.getChildren().entrySet()) {
+                List<ConfigurationNode> nodes = children.get(entry.getKey());
+                if (nodes == null) {
+                    children.put(entry.getKey(), nodes = new ArrayList<ConfigurationNode>(sources.size()));
+                }
+                nodes.add(entry.getValue());
+            }
+        }
+        int length = path.length();
+        for (Map.Entry<String, List<ConfigurationNode>> entry : children.entrySet()) {
+            List<ConfigurationNode> nodes = entry.getValue();
+            if (length > 0) {
+                path.append(getPathSeparator());
+            }
+            path.append(entry.getKey());
+            if (visitor.visit(path, nodes.get(0))) {
+                // Only the nodes down to the first one with a value contribute children, lower ones are hidden by that value
+                int end = 0;
+                while (end < nodes.size() && !hides(nodes.get(end))) {
+                    ++end;
+                }
+                walk(nodes.subList(0, end), path, visitor);
+            }
+            path.setLength(length);
+        }
+    }
+
+    /**
+     * Returns whether the given node hides the nodes below its path in lower layers, which it does if it stores a value instead of children. A declared default doesn't hide anything.
+     *
+     * @param node The node to check
+     * @return Whether the node hides lower layers
+     */
+    private static boolean hides(ConfigurationNode node) {
+        return !node.hasChildren() && node.getRawValue() != null;
+    }
+
+    /**
+     * Adds the listener to every layer, so it is notified of changes to any of them. Events name the layer that changed as their configuration.
+     *
+     * @param listener The listener to add
+     */
+    @Override
+    public void addListener(ConfigurationListener listener) {
+        for (Configuration layer : layers) {
+            layer.addListener(listener);
+        }
+    }
+
+    /**
+     * Adds the listener to every layer, so it is notified of changes to any of them. Events name the layer that changed as their configuration.
+     *
+     * @param listener The listener to add
+     * @param executor The executor to notify the listener with
+     */
+    @Override
+    public void addListener(ConfigurationListener listener, Executor executor) {
+        for (Configuration layer : layers) {
+            layer.addListener(listener, executor);
+        }
+    }
+
+    @Override
+    public boolean removeListener(ConfigurationListener listener) {
+        boolean removed = false;
+        for (Configuration layer : layers) {
+            removed |= layer.removeListener(listener);
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the resolution of the given path, reusing a cached one if none of the layers it depends on changed since.
+     *
+     * @param path The path to resolve
+     * @return The resolution of the path
+     */
+    private Resolution resolve(NodePath path) {
+        Resolution resolution = resolved.get(path);
+        if (resolution != null && resolution.isCurrent(layers)) {
+            return resolution;
+        }
+        // The stamps are read before the layers, so a change made while resolving invalidates the result
+        long[] versions = new long[layers.length];
+        for (int i = 0; i < layers.length; ++i) {
+            versions[i] = layers[i].getVersion();
+        }
+        String[] elements = ensureCorrectPath(path.getElements());
+        ConfigurationNode node = null;
+        int depth = layers.length;
+        layers:
+        for (int i = 0; i < layers.length; ++i) {
+            ConfigurationNodeSource current = layers[i];
+            for (int j = 0; j < elements.length; ++j) {
+                if (!current.hasChild(elements[j])) {
+                    continue layers;
+                }
+                ConfigurationNode child = current.getChild(elements[j]);
+                if (j == elements.length - 1) {
+                    node = i == 0 ? child : new LayerNode(elements, child);
+                } else if (!hides(child)) {
+                    current = child;
+                    continue;
+                }
+                // Found, or hidden by a value of this layer at a parent path
+                depth = i + 1;
+                break layers;
+            }
+        }
+        resolution = new Resolution(node, depth == versions.length ? versions : Arrays.copyOf(versions, depth));
+        if (resolved.size() < MAX_RESOLVED_PATHS || resolved.containsKey(path)) {
+            resolved.put(path, resolution);
+        }
+        return resolution;
+    }
+
+    /**
+     * A handle to a node of a lower layer. Reads go to the lower layer's node, while writes go to the node at the same path in the top layer, which overrides it. Children are looked up through
+     * the layered configuration again.
+     */
+    private final class LayerNode extends ConfigurationNode {
+        private final ConfigurationNode resolved;
+
+        LayerNode(String[] path, ConfigurationNode resolved) {
+            super(LayeredConfiguration.this, path, null);
+            this.resolved = resolved;
+        }
+
+        private ConfigurationNode topNode() {
+            return layers[0].getNode(getPathElements());
+        }
+
+        private String[] childPath(String[] relative) {
+            return ArrayUtils.addAll(getPathElements(), relative);
+        }
+
+        @Override
+        public Object getValue(Object def) {
+            return resolved.getValue(def);
+        }
+
+        @Override
+        Object getRawValue() {
+            return resolved.getRawValue();
+        }
+
+        @Override
+        boolean isUnset() {
+            return resolved.isUnset();
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object old = getValue();
+            topNode().setValue(value);
+            return old;
+        }
+
+        @Override
+        public void remove() {
+            topNode().remove();
+        }
+
+        @Override
+        public long getVersion() {
+            return resolved.getVersion();
+        }
+
+        @Override
+        public boolean isAttached() {
+            return resolved.isAttached();
+        }
+
+        @Override
+        public ConfigurationNodeSource getParent() {
+            String[] path = getPathElements();
+            return path.length == 1 ? LayeredConfiguration.this : LayeredConfiguration.this.getNode(ArrayUtils.remove(path, path.length - 1));
+        }
+
+        @Override
+        public ConfigurationNode addChild(ConfigurationNode node) {
+            return topNode().addChild(node);
+        }
+
+        @Override
+        public ConfigurationNode addNode(String name) {
+            return topNode().addNode(name);
+        }
+
+        @Override
+        public ConfigurationNode removeChild(String key) {
+            return topNode().removeChild(key);
+        }
+
+        @Override
+        public ConfigurationNode removeChild(ConfigurationNode node) {
+            return removeChild(node.getName());
+        }
+
+        @Override
+        public ConfigurationNode getChild(String name) {
+            return LayeredConfiguration.this.getNode(childPath(new String[] {name}));
+        }
+
+        @Override
+        public ConfigurationNode getChild(String name, boolean add) {
+            return add ? topNode().getChild(name, true) : getChild(name);
+        }
+
+        @Override
+        public ConfigurationNode getNode(String... path) {
+            return LayeredConfiguration.this.getNode(childPath(ensureCorrectPath(path)));
+        }
+
+        @Override
+        public boolean hasNode(String... path) {
+            return LayeredConfiguration.this.hasNode(childPath(ensureCorrectPath(path)));
+        }
+
+        @Override
+        public boolean hasChildren() {
+            return resolved.hasChildren();
+        }
+
+        @Override
+        public boolean hasChild(String key) {
+            return resolved.hasChild(key);
+        }
+
+        @Override
+        public Map<String, ConfigurationNode> getChildren() {
+            Map<String, ConfigurationNode> children = new LinkedHashMap<String, ConfigurationNode>();
+            for (String key : resolved.getChildren().keySet()) {
+                children.put(key, getChild(key));
+            }
+            return Collections.unmodifiableMap(children);
+        }
+
+        @Override
+        public Map<String, Object> getValues() {
+            return resolved.getValues();
+        }
+
+        @Override
+        public Set<String> getKeys(boolean deep) {
+            return resolved.getKeys(deep);
+        }
+
+        @Override
+        public void walk(NodeVisitor visitor) {
+            resolved.walk(visitor);
+        }
+    }
+
+    /**
+     * The node a path resolved to and the modification stamps of the layers the result depends on
+     */
+    private static final class Resolution {
+        /**
+         * The resolved node, or null if no layer has the path
+         */
+        final ConfigurationNode node;
+        /**
+         * The modification stamps of the layers down to the one that resolved the path, or of all layers if none did
+         */
+        final long[] versions;
+
+        Resolution(ConfigurationNode node, long[] versions) {
+            this.node = node;
+            this.versions = versions;
+        }
+
+        boolean isCurrent(Configuration[] layers) {
+            for (int i = 0; i < versions.length; ++i) {
+                if (layers[i].getVersion() != versions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -48,12 +48,7 @@ public abstract class MapBasedConfiguration extends AbstractConfiguration {
 
     @Override
     protected Map<String, ConfigurationNode> loadToNodes() throws ConfigurationException {
-        Map<?, ?> items = loadToMap();
-        Map<String, ConfigurationNode> children = new LinkedHashMap<String, ConfigurationNode>();
-        for (Map.Entry<?, ?> entry : items.entrySet()) {
-            children.put(entry.getKey().toString(), createConfigurationNode(new String[] {entry.getKey().toString()}, entry.getValue()));
-        }
-        return children;
+        return new ConfigurationTreeBuilder(this).putAll(loadToMap()).build();
     }
 
     @Override
@@ -0,0 +1,167 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Values derived from a node source's subtree, kept for as long as the node source's modification stamp (or, for the primitive cells, its value) stays the same. A node source only gets one once something is cached for it, so nodes
+ * that are never read through a cache don't pay for the fields.
+ */
+final class NodeCache {
+    /**
+     * The unmodifiable map returned by {@link ConfigurationNodeSource#getValues()}, or null
+     */
+    ValuesCell values;
+    /**
+     * The last coercion of the node's value by {@link ConfigurationNode#getInt(int)}, or null
+     */
+    ValueCell intCell;
+    /**
+     * The last coercion of the node's value by {@link ConfigurationNode#getLong(long)}, or null
+     */
+    ValueCell longCell;
+    /**
+     * The last coercion of the node's value by {@link ConfigurationNode#getDouble(double)}, or null
+     */
+    ValueCell doubleCell;
+    /**
+     * The last coercion of the node's value by {@link ConfigurationNode#getBoolean(boolean)}, or null
+     */
+    ValueCell booleanCell;
+    /**
+     * The values returned by {@link ConfigurationNode#getTypedValue(Type)} since the node last changed, or null
+     */
+    TypedValues typedValues;
+    /**
+     * The hash returned by {@link AbstractConfigurationNodeSource#getContentHash()}, or null
+     */
+    HashCell contentHash;
+
+    /**
+     * A value coerced to a primitive type, stored as raw bits so that reading it again needs neither boxing nor parsing. A cell is only valid while the node still holds the very value object it
+     * was coerced from. Cells are immutable so they can be shared with concurrent readers of a snapshot.
+     */
+    static final class ValueCell {
+        /**
+         * The value the cell was coerced from
+         */
+        final Object source;
+        /**
+         * Whether the coercion succeeded. If it did not, readers return their default
+         */
+        final boolean present;
+        /**
+         * The coerced value: an int or long as is, a double as its raw long bits and a boolean as 0 or 1
+         */
+        final long bits;
+
+        ValueCell(Object source, boolean present, long bits) {
+            this.source = source;
+            this.present = present;
+            this.bits = bits;
+        }
+    }
+
+    /**
+     * Returns whether a value can't be changed in place, so that something derived from it can be kept for as long as the node holds it.
+     *
+     * @param value The value
+     * @return Whether the value is null, a string, a boxed primitive or an enum constant
+     */
+    static boolean isImmutable(Object value) {
+        return value == null || value instanceof String || value instanceof Integer || value instanceof Long || value instanceof Double || value instanceof Boolean || value instanceof Float
+                || value instanceof Short || value instanceof Byte || value instanceof Character || value instanceof Enum<?>;
+    }
+
+    /**
+     * A value map with the stamp it was built at. The map and its stamp are published together, so a reader on another thread never pairs a new stamp with an old map.
+     */
+    static final class ValuesCell {
+        final long version;
+        final Map<String, Object> values;
+
+        ValuesCell(long version, Map<String, Object> values) {
+            this.version = version;
+            this.values = values;
+        }
+    }
+
+    /**
+     * A content hash with the modification stamp it was computed at. Like value cells, hash cells are immutable so they can be shared with concurrent readers of a snapshot.
+     */
+    static final class HashCell {
+        final long version;
+        final long hash;
+
+        HashCell(long version, long hash) {
+            this.version = version;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * The typed values converted from a node's value at one modification stamp, by requested type. Instances are never modified; converting to a new type replaces the instance with a copy, so the
+     * map can be shared with concurrent readers of a snapshot. A node is usually read as only one or two types, which keeps the copies small.
+     */
+    static final class TypedValues {
+        /**
+         * Stands in for a conversion that produced null
+         */
+        static final Object NULL = new Object();
+        /**
+         * The modification stamp the values were converted at
+         */
+        final long version;
+        /**
+         * The converted values by type, with {@link #NULL} for failed conversions
+         */
+        final Map<Type, Object> values;
+
+        TypedValues(long version, Map<Type, Object> values) {
+            this.version = version;
+            this.values = values;
+        }
+
+        /**
+         * Returns a copy of these typed values with one more conversion added.
+         *
+         * @param type The type converted to
+         * @param value The converted value, or null
+         * @return The new typed values
+         */
+        TypedValues with(Type type, Object value) {
+            Map<Type, Object> copy = new HashMap<Type, Object>(values);
+            copy.put(type, value == null ? NULL : value);
+            return new TypedValues(version, copy);
+        }
+
+        static TypedValues empty(long version) {
+            return new TypedValues(version, Collections.<Type, Object>emptyMap());
+        }
+    }
+}
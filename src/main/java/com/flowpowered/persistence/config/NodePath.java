@@ -0,0 +1,147 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * An immutable, pre-split path to a configuration node. NodePaths are meant to be created once, for example as constants, and then reused for lookups with {@link
+ * ConfigurationNodeSource#getNode(NodePath)}, so the path is never split or copied again. Paths are not interned, so creating paths for arbitrary keys keeps nothing alive; {@link
+ * Configuration#compilePath(String)} reuses the paths it compiled for one configuration.
+ */
+public final class NodePath {
+    private final String[] elements;
+    private final int hash;
+
+    NodePath(String[] elements) {
+        this.elements = elements;
+        this.hash = Arrays.hashCode(elements);
+    }
+
+    /**
+     * Returns the path made of the given elements. The elements are copied, so later changes to the array do not affect the path.
+     *
+     * @param elements The elements of the path
+     * @return The path
+     */
+    public static NodePath of(String... elements) {
+        if (elements.length == 0) {
+            throw new IllegalArgumentException("Path must not be empty!");
+        }
+        for (String element : elements) {
+            if (element == null) {
+                throw new IllegalArgumentException("Path elements must not be null!");
+            }
+        }
+        return new NodePath(elements.clone());
+    }
+
+    /**
+     * @return The number of elements in this path
+     */
+    public int size() {
+        return elements.length;
+    }
+
+    /**
+     * Returns whether this path is the given path or lies below it.
+     *
+     * @param prefix The path to check
+     * @return Whether the path starts with all elements of the given path
+     */
+    public boolean startsWith(NodePath prefix) {
+        if (prefix.elements.length > elements.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.elements.length; ++i) {
+            if (!elements[i].equals(prefix.elements[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param index The index of the element
+     * @return The element at the given index
+     */
+    public String getElement(int index) {
+        return elements[index];
+    }
+
+    /**
+     * @return The last element of this path, which is the name of the node it leads to
+     */
+    public String getName() {
+        return elements[elements.length - 1];
+    }
+
+    /**
+     * @return A copy of the elements of this path
+     */
+    public String[] getElements() {
+        return elements.clone();
+    }
+
+    /**
+     * Returns the elements of this path without copying them. Callers must not modify the returned array.
+     *
+     * @return The elements of this path
+     */
+    String[] elements() {
+        return elements;
+    }
+
+    /**
+     * @param separator The separator to put between elements
+     * @return The elements of this path joined by the separator
+     */
+    public String join(String separator) {
+        return StringUtils.join(elements, separator);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof NodePath)) {
+            return false;
+        }
+        NodePath other = (NodePath) o;
+        return hash == other.hash && Arrays.equals(elements, other.elements);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return join(".");
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+/**
+ * Computes a result from every node of a tree, see {@link ParallelTraversal}. Since nodes are processed by several threads at once, implementations must be thread-safe and {@link #combine(Object,
+ * Object)} must be associative.
+ *
+ * @param <T> The type of the result
+ */
+public interface NodeReducer<T> {
+    /**
+     * @return The result for no nodes at all, which must not change a result it is combined with
+     */
+    public T identity();
+
+    /**
+     * Computes the result for a single node. This is called for every node, including those with children.
+     *
+     * @param node The node
+     * @return The node's result
+     */
+    public T reduce(ConfigurationNode node);
+
+    /**
+     * Combines the results of two disjoint groups of nodes.
+     *
+     * @param first The first result
+     * @param second The second result
+     * @return The combined result
+     */
+    public T combine(T first, T second);
+}
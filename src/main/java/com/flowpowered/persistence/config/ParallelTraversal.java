@@ -0,0 +1,172 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Traverses configuration trees on a {@link ForkJoinPool}, so scanning, validating or aggregating the values of a large tree uses all cores. The tree is split on subtrees: every node with children
+ * becomes a task of its own that idle threads can steal, while leaves are processed by the task of their parent. Nodes with very many children are split further into ranges of children.
+ * <p>
+ * The tree must not be modified during a traversal.
+ */
+public class ParallelTraversal {
+    /**
+     * The number of children above which the children of a node are split into several tasks
+     */
+    private static final int SPLIT_THRESHOLD = 1024;
+    private static ParallelTraversal defaultTraversal;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a traversal running on the given pool.
+     *
+     * @param pool The pool to run on
+     */
+    public ParallelTraversal(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool must not be null!");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Returns a traversal that runs on a shared pool with one thread per available processor.
+     *
+     * @return The default traversal
+     */
+    public static synchronized ParallelTraversal getDefault() {
+        if (defaultTraversal == null) {
+            defaultTraversal = new ParallelTraversal(new ForkJoinPool());
+        }
+        return defaultTraversal;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Reduces all nodes below the given node source to a single result. The order in which the node results are combined is unspecified.
+     *
+     * @param source The node source to traverse
+     * @param reducer The reducer computing and combining the results
+     * @param <T> The type of the result
+     * @return The combined result of all nodes below the node source
+     */
+    public <T> T reduce(ConfigurationNodeSource source, NodeReducer<T> reducer) {
+        ConfigurationNode[] children = childrenOf(source);
+        if (children.length == 0) {
+            return reducer.identity();
+        }
+        return pool.invoke(new ReduceTask<T>(reducer, children, 0, children.length));
+    }
+
+    /**
+     * Counts the nodes below the given node source.
+     *
+     * @param source The node source to traverse
+     * @return The number of nodes below it
+     */
+    public long count(ConfigurationNodeSource source) {
+        return reduce(source, new NodeReducer<Long>() {
+            @Override
+            public Long identity() {
+                return 0L;
+            }
+
+            @Override
+            public Long reduce(ConfigurationNode node) {
+                return 1L;
+            }
+
+            @Override
+            public Long combine(Long first, Long second) {
+                return first + second;
+            }
+        });
+    }
+
+    private static ConfigurationNode[] childrenOf(ConfigurationNodeSource source) {
+        if (!source.hasChildren()) {
+            return new ConfigurationNode[0];
+        }
+        Collection<ConfigurationNode> children = source.getChildren().values();
+        return children.toArray(new ConfigurationNode[children.size()]);
+    }
+
+    /**
+     * Reduces a range of sibling nodes and their subtrees.
+     */
+    private static class ReduceTask<T> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+        private final NodeReducer<T> reducer;
+        private final ConfigurationNode[] nodes;
+        private final int from;
+        private final int to;
+
+        public ReduceTask(NodeReducer<T> reducer, ConfigurationNode[] nodes, int from, int to) {
+            this.reducer = reducer;
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                ReduceTask<T> second = new ReduceTask<T>(reducer, nodes, middle, to);
+                second.fork();
+                T first = new ReduceTask<T>(reducer, nodes, from, middle).compute();
+                return reducer.combine(first, second.join());
+            }
+            T result = reducer.identity();
+            List<ReduceTask<T>> subtrees = null;
+            for (int i = from; i < to; ++i) {
+                ConfigurationNode node = nodes[i];
+                result = reducer.combine(result, reducer.reduce(node));
+                ConfigurationNode[] children = childrenOf(node);
+                if (children.length > 0) {
+                    ReduceTask<T> subtree = new ReduceTask<T>(reducer, children, 0, children.length);
+                    subtree.fork();
+                    if (subtrees == null) {
+                        subtrees = new ArrayList<ReduceTask<T>>();
+                    }
+                    subtrees.add(subtree);
+                }
+            }
+            if (subtrees != null) {
+                for (ReduceTask<T> subtree : subtrees) {
+                    result = reducer.combine(result, subtree.join());
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * An immutable, pre-compiled pattern matching the paths of configuration nodes, used with {@link ConfigurationNodeSource#getNodes(PathPattern)}. A pattern is made of segments, each of which matches
+ * one path element: {@code *} matches any single element, {@code **} matches any number of elements, including none, and any other segment matches an element equal to it. For example, {@code
+ * servers.*.port} matches the port of every server, and {@code **.timeout} matches every node named timeout.
+ * <p>
+ * Patterns are matched during a single walk down the tree, which only descends into nodes that can still lead to a match and looks up literal segments directly instead of going through all children.
+ * Patterns created with {@link #compile(String, String)} are cached, so compiling the same pattern again is a map lookup.
+ */
+public final class PathPattern {
+    /**
+     * The wildcard matching any single path element
+     */
+    public static final String ANY = "*";
+    /**
+     * The wildcard matching any number of path elements
+     */
+    public static final String ANY_DEPTH = "**";
+    /**
+     * The maximum number of segments, since the matching states are kept in the bits of a long
+     */
+    private static final int MAX_SEGMENTS = 63;
+    /**
+     * The maximum amount of patterns cached by {@link #compile(String, String)}
+     */
+    private static final int MAX_COMPILED_PATTERNS = 1024;
+    private static final ConcurrentMap<String, PathPattern> COMPILED = new ConcurrentHashMap<String, PathPattern>();
+    private final String[] segments;
+    /**
+     * The matching state in which the whole pattern has been matched
+     */
+    private final long accepting;
+    /**
+     * The states before matching anything, with the states reachable by skipping {@code **} segments
+     */
+    private final long initial;
+
+    private PathPattern(String[] segments) {
+        if (segments.length == 0) {
+            throw new IllegalArgumentException("Pattern must not be empty!");
+        }
+        if (segments.length > MAX_SEGMENTS) {
+            throw new IllegalArgumentException("Pattern must not have more than " + MAX_SEGMENTS + " segments!");
+        }
+        for (String segment : segments) {
+            if (segment == null) {
+                throw new IllegalArgumentException("Pattern segments must not be null!");
+            }
+        }
+        this.segments = segments;
+        this.accepting = 1L << segments.length;
+        this.initial = close(1L);
+    }
+
+    /**
+     * Creates a pattern from the given segments.
+     *
+     * @param segments The segments of the pattern
+     * @return The pattern
+     */
+    public static PathPattern of(String... segments) {
+        return new PathPattern(segments.clone());
+    }
+
+    /**
+     * Compiles a pattern by splitting it with the given path separator. Compiled patterns are cached, so compiling the same pattern again returns the same instance.
+     *
+     * @param pattern The pattern to compile
+     * @param separator The path separator of the configuration the pattern is used with
+     * @return The compiled pattern
+     */
+    public static PathPattern compile(String pattern, String separator) {
+        String key = separator + '\u0000' + pattern;
+        PathPattern compiled = COMPILED.get(key);
+        if (compiled == null) {
+            compiled = new PathPattern(StringUtils.splitByWholeSeparatorPreserveAllTokens(pattern, separator));
+            if (COMPILED.size() < MAX_COMPILED_PATTERNS) {
+                PathPattern existing = COMPILED.putIfAbsent(key, compiled);
+                if (existing != null) {
+                    compiled = existing;
+                }
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Returns whether the pattern matches the given path.
+     *
+     * @param path The elements of the path
+     * @return Whether the path matches
+     */
+    public boolean matches(String... path) {
+        long states = initial;
+        for (int i = 0; i < path.length && states != 0; ++i) {
+            states = step(states, path[i]);
+        }
+        return (states & accepting) != 0;
+    }
+
+    /**
+     * Adds the states reachable from the given ones without consuming an element, which are the states after {@code **} segments.
+     *
+     * @param states The matching states
+     * @return The states including the ones reachable by skipping {@code **} segments
+     */
+    private long close(long states) {
+        for (int i = 0; i < segments.length; ++i) {
+            if ((states & (1L << i)) != 0 && segments[i].equals(ANY_DEPTH)) {
+                states |= 1L << (i + 1);
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Advances the matching states by one path element.
+     *
+     * @param states The states before the element
+     * @param element The path element
+     * @return The states after the element, or 0 if the pattern can no longer match
+     */
+    long step(long states, String element) {
+        long next = 0;
+        for (int i = 0; i < segments.length; ++i) {
+            if ((states & (1L << i)) == 0) {
+                continue;
+            }
+            String segment = segments[i];
+            if (segment.equals(ANY_DEPTH)) {
+                next |= 1L << i;
+            } else if (segment.equals(ANY) || segment.equals(element)) {
+                next |= 1L << (i + 1);
+            }
+        }
+        return close(next);
+    }
+
+    /**
+     * Returns the one element a child must be named to advance the given states, if the states only wait for a single literal segment. Such children are looked up directly.
+     *
+     * @param states The matching states
+     * @return The literal element, or null if children with other names can match too
+     */
+    private String literal(long states) {
+        if (Long.bitCount(states) != 1 || (states & accepting) != 0) {
+            return null;
+        }
+        String segment = segments[Long.numberOfTrailingZeros(states)];
+        return segment.equals(ANY) || segment.equals(ANY_DEPTH) ? null : segment;
+    }
+
+    /**
+     * Returns the nodes below the given source whose path relative to the source matches this pattern, in the order of a depth-first walk. The nodes are found lazily while iterating, so the
+     * tree must not be changed during the iteration.
+     *
+     * @param source The node source to search below
+     * @return The matching nodes
+     */
+    public Iterable<ConfigurationNode> match(final ConfigurationNodeSource source) {
+        return new Iterable<ConfigurationNode>() {
+            @Override
+            public Iterator<ConfigurationNode> iterator() {
+                return new Matcher(source);
+            }
+        };
+    }
+
+    /**
+     * Walks down the tree, one frame per level, and stops at every matching node.
+     */
+    private final class Matcher implements Iterator<ConfigurationNode> {
+        private final List<Iterator<Map.Entry<String, ConfigurationNode>>> children = new ArrayList<Iterator<Map.Entry<String, ConfigurationNode>>>();
+        private long[] states = new long[8];
+        private ConfigurationNode next;
+
+        Matcher(ConfigurationNodeSource source) {
+            push(source, initial);
+        }
+
+        private void push(ConfigurationNodeSource source, long state) {
+            String literal = literal(state);
+            Iterator<Map.Entry<String, ConfigurationNode>> iterator;
+            if (literal == null) {
+                iterator = source.getChildren().entrySet().iterator();
+            } else if (source.hasChild(literal)) {
+                Map.Entry<String, ConfigurationNode> entry = new AbstractMap.SimpleImmutableEntry<String, ConfigurationNode>(literal, source.getChild(literal));
+                iterator = Collections.singletonList(entry).iterator();
+            } else {
+                iterator = Collections.<Map.Entry<String, ConfigurationNode>>emptyIterator();
+            }
+            if (children.size() == states.length) {
+                states = Arrays.copyOf(states, states.length * 2);
+            }
+            states[children.size()] = state;
+            children.add(iterator);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !children.isEmpty()) {
+                int depth = children.size() - 1;
+                Iterator<Map.Entry<String, ConfigurationNode>> iterator = children.get(depth);
+                if (!iterator.hasNext()) {
+                    children.remove(depth);
+                    continue;
+                }
+                Map.Entry<String, ConfigurationNode> entry = iterator.next();
+                ConfigurationNode child = entry.getValue();
+                long state = step(states[depth], entry.getKey());
+                if ((state & accepting) != 0) {
+                    next = child;
+                }
+                // Only descend while some state still waits for more elements
+                if ((state & ~accepting) != 0 && child.hasChildren()) {
+                    push(child, state & ~accepting);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public ConfigurationNode next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ConfigurationNode result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof PathPattern && Arrays.equals(segments, ((PathPattern) o).segments);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(segments);
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.join(segments, '.');
+    }
+}
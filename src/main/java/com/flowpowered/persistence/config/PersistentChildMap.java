@@ -0,0 +1,349 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable hash array mapped trie from child names to {@link PersistentNode}s. Adding or removing a child returns a new map that shares everything but the trie nodes on the changed key's
+ * branch with the original, so at most a handful of small arrays are copied. Every entry carries the sequence number it was added with, and replacing a child keeps it, so {@link #toMap()} lists
+ * the children in the order they were added, like the maps of the other configurations.
+ */
+final class PersistentChildMap {
+    static final PersistentChildMap EMPTY = new PersistentChildMap(null, 0, 0);
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final Comparator<Slot> ORDER = new Comparator<Slot>() {
+        @Override
+        public int compare(Slot a, Slot b) {
+            return a.order < b.order ? -1 : a.order == b.order ? 0 : 1;
+        }
+    };
+    private final TrieNode root;
+    private final int size;
+    /**
+     * The sequence number the next added entry gets
+     */
+    private final long nextOrder;
+
+    private PersistentChildMap(TrieNode root, int size, long nextOrder) {
+        this.root = root;
+        this.size = size;
+        this.nextOrder = nextOrder;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    PersistentNode get(String key) {
+        return root == null ? null : root.find(0, hash(key), key);
+    }
+
+    PersistentChildMap with(String key, PersistentNode value) {
+        boolean[] added = new boolean[1];
+        int hash = hash(key);
+        TrieNode newRoot = root == null ? new BitmapNode(0, new Object[0]).with(0, hash, key, value, nextOrder, added) : root.with(0, hash, key, value, nextOrder, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return added[0] ? new PersistentChildMap(newRoot, size + 1, nextOrder + 1) : new PersistentChildMap(newRoot, size, nextOrder);
+    }
+
+    PersistentChildMap without(String key) {
+        if (root == null) {
+            return this;
+        }
+        TrieNode newRoot = root.without(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? EMPTY : new PersistentChildMap(newRoot, size - 1, nextOrder);
+    }
+
+    /**
+     * Returns the entries of this map in the order they were added.
+     *
+     * @return A new map of the entries
+     */
+    Map<String, PersistentNode> toMap() {
+        Map<String, PersistentNode> ret = new LinkedHashMap<String, PersistentNode>();
+        if (root == null) {
+            return ret;
+        }
+        List<Slot> slots = new ArrayList<Slot>(size);
+        root.collect(slots);
+        Collections.sort(slots, ORDER);
+        for (Slot slot : slots) {
+            ret.put(slot.key, slot.node);
+        }
+        return ret;
+    }
+
+    /**
+     * An entry of the map with the sequence number it was added with
+     */
+    private static final class Slot {
+        final String key;
+        final long order;
+        final PersistentNode node;
+
+        Slot(String key, long order, PersistentNode node) {
+            this.key = key;
+            this.order = order;
+            this.node = node;
+        }
+    }
+
+    private abstract static class TrieNode {
+        abstract PersistentNode find(int shift, int hash, String key);
+
+        /**
+         * @param order The sequence number to give the key if it is added, an existing key keeps its own
+         */
+        abstract TrieNode with(int shift, int hash, String key, PersistentNode value, long order, boolean[] added);
+
+        /**
+         * @return The node without the key, this if the key is absent, or null if the node became empty
+         */
+        abstract TrieNode without(int shift, int hash, String key);
+
+        abstract void collect(List<Slot> into);
+    }
+
+    /**
+     * A trie node with up to 32 slots, of which only the used ones are stored. Each slot is a key and {@link Slot} pair, or a null key and a sub-node for keys that share the slot.
+     */
+    private static final class BitmapNode extends TrieNode {
+        private final int bitmap;
+        private final Object[] entries;
+
+        BitmapNode(int bitmap, Object[] entries) {
+            this.bitmap = bitmap;
+            this.entries = entries;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        PersistentNode find(int shift, int hash, String key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int index = index(bit);
+            Object entryKey = entries[2 * index];
+            Object entryValue = entries[2 * index + 1];
+            if (entryKey == null) {
+                return ((TrieNode) entryValue).find(shift + BITS, hash, key);
+            }
+            return key.equals(entryKey) ? ((Slot) entryValue).node : null;
+        }
+
+        @Override
+        TrieNode with(int shift, int hash, String key, PersistentNode value, long order, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] newEntries = new Object[entries.length + 2];
+                System.arraycopy(entries, 0, newEntries, 0, 2 * index);
+                newEntries[2 * index] = key;
+                newEntries[2 * index + 1] = new Slot(key, order, value);
+                System.arraycopy(entries, 2 * index, newEntries, 2 * index + 2, entries.length - 2 * index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newEntries);
+            }
+            Object entryKey = entries[2 * index];
+            Object entryValue = entries[2 * index + 1];
+            Object newValue;
+            if (entryKey == null) {
+                TrieNode sub = ((TrieNode) entryValue).with(shift + BITS, hash, key, value, order, added);
+                if (sub == entryValue) {
+                    return this;
+                }
+                newValue = sub;
+            } else if (key.equals(entryKey)) {
+                Slot slot = (Slot) entryValue;
+                if (value == slot.node) {
+                    return this;
+                }
+                newValue = new Slot(key, slot.order, value);
+            } else {
+                added[0] = true;
+                Object[] newEntries = entries.clone();
+                newEntries[2 * index] = null;
+                newEntries[2 * index + 1] = createNode(shift + BITS, (Slot) entryValue, hash, new Slot(key, order, value));
+                return new BitmapNode(bitmap, newEntries);
+            }
+            Object[] newEntries = entries.clone();
+            newEntries[2 * index + 1] = newValue;
+            return new BitmapNode(bitmap, newEntries);
+        }
+
+        @Override
+        TrieNode without(int shift, int hash, String key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object entryKey = entries[2 * index];
+            Object entryValue = entries[2 * index + 1];
+            if (entryKey == null) {
+                TrieNode sub = ((TrieNode) entryValue).without(shift + BITS, hash, key);
+                if (sub == entryValue) {
+                    return this;
+                }
+                if (sub != null) {
+                    Object[] newEntries = entries.clone();
+                    newEntries[2 * index + 1] = sub;
+                    return new BitmapNode(bitmap, newEntries);
+                }
+            } else if (!key.equals(entryKey)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] newEntries = new Object[entries.length - 2];
+            System.arraycopy(entries, 0, newEntries, 0, 2 * index);
+            System.arraycopy(entries, 2 * index + 2, newEntries, 2 * index, newEntries.length - 2 * index);
+            return new BitmapNode(bitmap & ~bit, newEntries);
+        }
+
+        @Override
+        void collect(List<Slot> into) {
+            for (int i = 0; i < entries.length; i += 2) {
+                if (entries[i] == null) {
+                    ((TrieNode) entries[i + 1]).collect(into);
+                } else {
+                    into.add((Slot) entries[i + 1]);
+                }
+            }
+        }
+
+        /**
+         * Creates a trie node holding two slots whose keys share a slot of their parent.
+         */
+        private static TrieNode createNode(int shift, Slot slot1, int hash2, Slot slot2) {
+            int hash1 = hash(slot1.key);
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Slot[] {slot1, slot2});
+            }
+            int index1 = (hash1 >>> shift) & MASK;
+            int index2 = (hash2 >>> shift) & MASK;
+            if (index1 == index2) {
+                return new BitmapNode(1 << index1, new Object[] {null, createNode(shift + BITS, slot1, hash2, slot2)});
+            }
+            Object[] entries = index1 < index2 ? new Object[] {slot1.key, slot1, slot2.key, slot2} : new Object[] {slot2.key, slot2, slot1.key, slot1};
+            return new BitmapNode(1 << index1 | 1 << index2, entries);
+        }
+    }
+
+    /**
+     * A trie node holding keys whose hashes are completely equal.
+     */
+    private static final class CollisionNode extends TrieNode {
+        private final int hash;
+        private final Slot[] slots;
+
+        CollisionNode(int hash, Slot[] slots) {
+            this.hash = hash;
+            this.slots = slots;
+        }
+
+        private int indexOf(String key) {
+            for (int i = 0; i < slots.length; ++i) {
+                if (key.equals(slots[i].key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        PersistentNode find(int shift, int hash, String key) {
+            int index = indexOf(key);
+            return index < 0 ? null : slots[index].node;
+        }
+
+        @Override
+        TrieNode with(int shift, int hash, String key, PersistentNode value, long order, boolean[] added) {
+            if (hash != this.hash) {
+                return new BitmapNode(1 << ((this.hash >>> shift) & MASK), new Object[] {null, this}).with(shift, hash, key, value, order, added);
+            }
+            int index = indexOf(key);
+            Slot[] newSlots;
+            if (index < 0) {
+                newSlots = new Slot[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, slots.length);
+                newSlots[slots.length] = new Slot(key, order, value);
+                added[0] = true;
+            } else {
+                if (slots[index].node == value) {
+                    return this;
+                }
+                newSlots = slots.clone();
+                newSlots[index] = new Slot(key, slots[index].order, value);
+            }
+            return new CollisionNode(hash, newSlots);
+        }
+
+        @Override
+        TrieNode without(int shift, int hash, String key) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            if (slots.length == 1) {
+                return null;
+            }
+            Slot[] newSlots = new Slot[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, newSlots.length - index);
+            return new CollisionNode(hash, newSlots);
+        }
+
+        @Override
+        void collect(List<Slot> into) {
+            Collections.addAll(into, slots);
+        }
+    }
+}
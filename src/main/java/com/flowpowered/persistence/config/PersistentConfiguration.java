@@ -0,0 +1,628 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+/**
+ * A configuration whose tree is persistent: every change produces a new immutable tree that shares all untouched subtrees with the previous one. This makes {@link #fork()} a constant-time
+ * operation, however large the configuration is, and lets readers traverse the tree without locks while writers modify it.
+ * <p>
+ * The nodes handed out by this configuration are lightweight handles that look their path up in the current tree on every access, so a handle sees later changes to its path and stays valid
+ * after the node is removed and added again. Nodes passed to {@link #addChild(ConfigurationNode)} or {@link #setNode(ConfigurationNode)} are copied into the tree rather than attached. Child
+ * iteration order is unspecified. Values other than maps are shared between forks, so they should not be modified in place.
+ * <p>
+ * Listeners are notified once per change, while the change still holds this configuration's lock.
+ * <p>
+ * Loading and saving go through the wrapped configuration: {@link #load()} replaces the tree with a copy of the freshly loaded wrapped configuration and {@link #save()} writes the tree back to
+ * it before saving it.
+ */
+public class PersistentConfiguration extends ConfigurationWrapper {
+    private volatile PersistentNode root;
+    private volatile long version;
+    private volatile long cleanVersion;
+    private final ConfigurationListeners listeners = new ConfigurationListeners();
+
+    /**
+     * Creates a persistent configuration without a backing store. Loading and saving it does nothing.
+     */
+    public PersistentConfiguration() {
+        this(new MapConfiguration());
+    }
+
+    /**
+     * Creates a persistent configuration that loads from and saves to the given configuration, starting with a copy of its current contents.
+     *
+     * @param config The configuration to wrap
+     */
+    public PersistentConfiguration(Configuration config) {
+        this(config, PersistentNode.copyOf(config), 0, config.isDirty() ? -1 : 0);
+    }
+
+    private PersistentConfiguration(Configuration config, PersistentNode root, long version, long cleanVersion) {
+        super(config);
+        this.root = root;
+        this.version = version;
+        this.cleanVersion = cleanVersion;
+    }
+
+    /**
+     * Creates an independent copy of this configuration in constant time. The fork shares this configuration's current tree and wrapped configuration, and changes made to either configuration
+     * afterwards are not visible to the other.
+     *
+     * @return The fork
+     */
+    public PersistentConfiguration fork() {
+        synchronized (this) {
+            return new PersistentConfiguration(getConfiguration(), root, version, cleanVersion);
+        }
+    }
+
+    @Override
+    public void load() throws ConfigurationException {
+        Configuration config = getConfiguration();
+        config.load();
+        synchronized (this) {
+            PersistentNode oldRoot = root;
+            setRoot(PersistentNode.copyOf(config), (Set<NodePath>) null);
+            if (!listeners.isEmpty()) {
+                Set<NodePath> changes = new LinkedHashSet<NodePath>();
+                ConfigurationListeners.diff(ArrayUtils.EMPTY_STRING_ARRAY, oldRoot.getValues(), root.getValues(), changes);
+                listeners.fire(this, changes);
+            }
+            markClean();
+        }
+    }
+
+    @Override
+    public void save() throws ConfigurationException {
+        if (doesWriteDefaults()) {
+            applyDefaults();
+        }
+        Configuration config = getConfiguration();
+        PersistentNode current;
+        long savedVersion;
+        synchronized (this) {
+            if (!isDirty()) {
+                return;
+            }
+            current = root;
+            savedVersion = version;
+        }
+        for (String key : new ArrayList<String>(config.getChildren().keySet())) {
+            config.removeChild(key);
+        }
+        for (Map.Entry<String, PersistentNode> entry : current.getChildren().entrySet()) {
+            config.getChild(entry.getKey(), true).setValue(entry.getValue().getValue());
+        }
+        config.save();
+        synchronized (this) {
+            // Changes made while saving keep the configuration dirty
+            cleanVersion = savedVersion;
+        }
+    }
+
+    @Override
+    public ConfigurationSnapshot snapshot() {
+        return new ConfigurationSnapshot(this);
+    }
+
+    @Override
+    public FrozenConfiguration freeze() {
+        return new FrozenConfiguration(this);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * Applies the batch to a new tree and then replaces the current tree with it, so concurrent readers see either none or all of the changes.
+     *
+     * @param editor The editor recording the changes
+     */
+    @Override
+    public void edit(ConfigurationEditor editor) {
+        ConfigurationTransaction transaction = new ConfigurationTransaction(this);
+        editor.edit(transaction);
+        if (transaction.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            setRoot(apply(root, transaction.getRoot()), transaction.getPaths());
+        }
+    }
+
+    /**
+     * Writes the declared defaults of the backing configuration to this configuration's own tree, as a single edit.
+     */
+    @Override
+    public void applyDefaults() {
+        final Map<NodePath, Object> defaults = getDefaults();
+        if (defaults.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            edit(new ConfigurationEditor() {
+                @Override
+                public void edit(ConfigurationTransaction transaction) {
+                    for (Map.Entry<NodePath, Object> entry : defaults.entrySet()) {
+                        PersistentNode node = root.get(entry.getKey().getElements());
+                        if (node == null || !node.hasChildren() && node.getRawValue() == null) {
+                            transaction.set(entry.getKey(), entry.getValue());
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    private static PersistentNode apply(PersistentNode node, ConfigurationTransaction.Operation operations) {
+        for (Map.Entry<String, ConfigurationTransaction.Operation> entry : operations.children.entrySet()) {
+            ConfigurationTransaction.Operation operation = entry.getValue();
+            String[] name = {entry.getKey()};
+            PersistentNode child = operation.remove ? null : node.getChild(entry.getKey());
+            if (operation.set) {
+                child = PersistentNode.of(operation.value);
+            }
+            if (operation.children != null) {
+                child = apply(child == null ? PersistentNode.EMPTY : child, operation);
+            }
+            node = child == null ? node.without(name, 0) : node.with(name, 0, child);
+        }
+        return node;
+    }
+
+    @Override
+    public boolean isDirty() {
+        return version != cleanVersion;
+    }
+
+    @Override
+    public synchronized void markClean() {
+        cleanVersion = version;
+    }
+
+    @Override
+    public synchronized void markDirty() {
+        cleanVersion = -1;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public void addListener(ConfigurationListener listener) {
+        addListener(listener, null);
+    }
+
+    @Override
+    public void addListener(ConfigurationListener listener, Executor executor) {
+        listeners.add(ArrayUtils.EMPTY_STRING_ARRAY, listener, executor);
+    }
+
+    @Override
+    public boolean removeListener(ConfigurationListener listener) {
+        return listeners.remove(ArrayUtils.EMPTY_STRING_ARRAY, listener);
+    }
+
+    @Override
+    public void setNode(ConfigurationNode node) {
+        replace(node.getPathElements(), PersistentNode.copyOf(node));
+    }
+
+    @Override
+    public ConfigurationNode getChild(String name) {
+        return new Node(new String[] {name});
+    }
+
+    @Override
+    public ConfigurationNode getChild(String name, boolean add) {
+        return ((Node) getChild(name)).ensureExists(add);
+    }
+
+    @Override
+    public ConfigurationNode addChild(ConfigurationNode node) {
+        return addChildAt(ArrayUtils.EMPTY_STRING_ARRAY, node);
+    }
+
+    @Override
+    public ConfigurationNode addNode(String name) {
+        return addNodeAt(ArrayUtils.EMPTY_STRING_ARRAY, name);
+    }
+
+    @Override
+    public void addChildren(ConfigurationNode... nodes) {
+        for (ConfigurationNode node : nodes) {
+            addChild(node);
+        }
+    }
+
+    @Override
+    public ConfigurationNode removeChild(String key) {
+        return removeAt(new String[] {key});
+    }
+
+    @Override
+    public ConfigurationNode removeChild(ConfigurationNode node) {
+        return removeChild(node.getName());
+    }
+
+    @Override
+    public Map<String, ConfigurationNode> getChildren() {
+        return getChildrenAt(ArrayUtils.EMPTY_STRING_ARRAY);
+    }
+
+    @Override
+    public Map<String, Object> getValues() {
+        return root.getValues();
+    }
+
+    @Override
+    public Set<String> getKeys(boolean deep) {
+        return getKeys(root, deep);
+    }
+
+    @Override
+    public Iterable<ConfigurationNode> getNodes(PathPattern pattern) {
+        return pattern.match(this);
+    }
+
+    @Override
+    public void walk(NodeVisitor visitor) {
+        walk(ArrayUtils.EMPTY_STRING_ARRAY, root, new StringBuilder(), false, visitor);
+    }
+
+    @Override
+    public ConfigurationNode getNode(String path) {
+        return getNode(compilePath(path));
+    }
+
+    @Override
+    public ConfigurationNode getNode(String... path) {
+        return new Node(ensureCorrectPath(path).clone());
+    }
+
+    @Override
+    public ConfigurationNode getNode(NodePath path) {
+        return new Node(ensureCorrectPath(path.getElements()));
+    }
+
+    @Override
+    public boolean hasChildren() {
+        return root.hasChildren();
+    }
+
+    @Override
+    public boolean hasChild(String key) {
+        return root.getChild(key) != null;
+    }
+
+    @Override
+    public boolean hasNode(String... path) {
+        return root.get(ensureCorrectPath(path)) != null;
+    }
+
+    @Override
+    public boolean hasNode(NodePath path) {
+        return root.get(ensureCorrectPath(path.elements())) != null;
+    }
+
+    @Override
+    public String[] getPathElements() {
+        return ArrayUtils.EMPTY_STRING_ARRAY;
+    }
+
+    /**
+     * Makes the given tree the current one, counting it as a modification and notifying the listeners if it differs from the current one. Callers must hold this configuration's lock, so
+     * listeners notified on the changing thread are notified in the order of the changes.
+     *
+     * @param newRoot The new tree
+     * @param changedPath The path of the node that differs between the trees, or null to notify no listeners
+     */
+    private void setRoot(PersistentNode newRoot, String[] changedPath) {
+        setRoot(newRoot, changedPath == null ? null : Collections.singleton(new NodePath(changedPath)));
+    }
+
+    private void setRoot(PersistentNode newRoot, Set<NodePath> changedPaths) {
+        if (newRoot != root) {
+            root = newRoot;
+            ++version;
+            if (changedPaths != null && !listeners.isEmpty()) {
+                listeners.fire(this, changedPaths);
+            }
+        }
+    }
+
+    private synchronized void replace(String[] path, PersistentNode node) {
+        setRoot(root.with(path, 0, node), path);
+    }
+
+    private ConfigurationNode addChildAt(String[] parentPath, ConfigurationNode node) {
+        String[] path = ArrayUtils.add(parentPath, node.getName());
+        PersistentNode copy = PersistentNode.copyOf(node);
+        synchronized (this) {
+            PersistentNode old = root.get(path);
+            setRoot(root.with(path, 0, copy), path);
+            return old == null ? null : new Node(path);
+        }
+    }
+
+    private ConfigurationNode addNodeAt(String[] parentPath, String name) {
+        return createAt(ArrayUtils.addAll(parentPath, splitNodePath(name)));
+    }
+
+    private synchronized ConfigurationNode createAt(String[] path) {
+        if (root.get(path) == null) {
+            setRoot(root.with(path, 0, PersistentNode.EMPTY), path);
+        }
+        return new Node(path);
+    }
+
+    private synchronized ConfigurationNode removeAt(String[] path) {
+        PersistentNode newRoot = root.without(path, 0);
+        if (newRoot == root) {
+            return null;
+        }
+        setRoot(newRoot, path);
+        return new Node(path);
+    }
+
+    private Map<String, ConfigurationNode> getChildrenAt(String[] path) {
+        PersistentNode node = root.get(path);
+        if (node == null || !node.hasChildren()) {
+            return Collections.emptyMap();
+        }
+        Map<String, ConfigurationNode> ret = new LinkedHashMap<String, ConfigurationNode>();
+        for (String key : node.getChildren().keySet()) {
+            ret.put(key, new Node(ArrayUtils.add(path, key)));
+        }
+        return Collections.unmodifiableMap(ret);
+    }
+
+    /**
+     * Visits the nodes below a node of one version of the tree, so changes made by the visitor do not affect the walk.
+     */
+    private void walk(String[] nodePath, PersistentNode node, StringBuilder path, boolean nested, NodeVisitor visitor) {
+        if (node == null || !node.hasChildren()) {
+            return;
+        }
+        int length = path.length();
+        String separator = getPathSeparator();
+        for (Map.Entry<String, PersistentNode> entry : node.getChildren().entrySet()) {
+            path.setLength(length);
+            if (nested) {
+                path.append(separator);
+            }
+            path.append(entry.getKey());
+            String[] childPath = ArrayUtils.add(nodePath, entry.getKey());
+            if (visitor.visit(path, new Node(childPath))) {
+                walk(childPath, entry.getValue(), path, true, visitor);
+            }
+        }
+    }
+
+    private Set<String> getKeys(PersistentNode node, boolean deep) {
+        if (node == null) {
+            return Collections.emptySet();
+        }
+        Set<String> keys = new LinkedHashSet<String>();
+        for (Map.Entry<String, PersistentNode> entry : node.getChildren().entrySet()) {
+            keys.add(entry.getKey());
+            if (deep) {
+                for (String key : getKeys(entry.getValue(), true)) {
+                    keys.add(entry.getKey() + getPathSeparator() + key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * A handle to the node at a path of this configuration's current tree.
+     */
+    private final class Node extends ConfigurationNode {
+        Node(String[] path) {
+            super(PersistentConfiguration.this, path, null);
+        }
+
+        private PersistentNode find() {
+            return root.get(getPathElements());
+        }
+
+        private String[] childPath(String[] relative) {
+            return ArrayUtils.addAll(getPathElements(), relative);
+        }
+
+        ConfigurationNode ensureExists(boolean add) {
+            return add ? createAt(getPathElements()) : this;
+        }
+
+        @Override
+        public Object getValue(Object def) {
+            PersistentNode node = find();
+            if (node != null) {
+                Object value = node.getValue();
+                if (value != null) {
+                    return value;
+                }
+            }
+            return getDefault(def);
+        }
+
+        @Override
+        Object getRawValue() {
+            PersistentNode node = find();
+            return node == null ? null : node.getRawValue();
+        }
+
+        @Override
+        boolean isUnset() {
+            PersistentNode node = find();
+            return (node == null || node.getRawValue() == null && !node.hasChildren()) && getDefault(null) == null;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            PersistentNode replacement = PersistentNode.of(value);
+            synchronized (PersistentConfiguration.this) {
+                PersistentNode current = find();
+                Object old = current == null ? null : current.getValue();
+                if (current == null || current.hasChildren() || replacement.hasChildren() || !Objects.equals(current.getRawValue(), replacement.getRawValue())) {
+                    replace(getPathElements(), replacement);
+                }
+                return old;
+            }
+        }
+
+        /**
+         * Returns the modification stamp of the whole configuration, since handles do not track modifications of their own subtree.
+         *
+         * @return The configuration's modification stamp
+         */
+        @Override
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public void addListener(ConfigurationListener listener, Executor executor) {
+            listeners.add(getPathElements(), listener, executor);
+        }
+
+        @Override
+        public boolean removeListener(ConfigurationListener listener) {
+            return listeners.remove(getPathElements(), listener);
+        }
+
+        @Override
+        public void remove() {
+            removeAt(getPathElements());
+        }
+
+        @Override
+        public boolean isAttached() {
+            return find() != null;
+        }
+
+        @Override
+        public ConfigurationNodeSource getParent() {
+            String[] path = getPathElements();
+            return path.length == 1 ? PersistentConfiguration.this : new Node(ArrayUtils.remove(path, path.length - 1));
+        }
+
+        @Override
+        public ConfigurationNode addChild(ConfigurationNode node) {
+            return addChildAt(getPathElements(), node);
+        }
+
+        @Override
+        public ConfigurationNode addNode(String name) {
+            return addNodeAt(getPathElements(), name);
+        }
+
+        @Override
+        public void addChildren(ConfigurationNode... nodes) {
+            for (ConfigurationNode node : nodes) {
+                addChild(node);
+            }
+        }
+
+        @Override
+        public ConfigurationNode getChild(String name) {
+            return new Node(childPath(new String[] {name}));
+        }
+
+        @Override
+        public ConfigurationNode getChild(String name, boolean add) {
+            return ((Node) getChild(name)).ensureExists(add);
+        }
+
+        @Override
+        public ConfigurationNode removeChild(String key) {
+            return removeAt(childPath(new String[] {key}));
+        }
+
+        @Override
+        public ConfigurationNode removeChild(ConfigurationNode node) {
+            return removeChild(node.getName());
+        }
+
+        @Override
+        public Map<String, ConfigurationNode> getChildren() {
+            return getChildrenAt(getPathElements());
+        }
+
+        @Override
+        public Map<String, Object> getValues() {
+            PersistentNode node = find();
+            return node == null ? new LinkedHashMap<String, Object>() : node.getValues();
+        }
+
+        @Override
+        public Set<String> getKeys(boolean deep) {
+            return PersistentConfiguration.this.getKeys(find(), deep);
+        }
+
+        @Override
+        public ConfigurationNode getNode(String... path) {
+            return new Node(childPath(ensureCorrectPath(path)));
+        }
+
+        @Override
+        public void walk(NodeVisitor visitor) {
+            PersistentConfiguration.this.walk(getPathElements(), find(), new StringBuilder(), false, visitor);
+        }
+
+        @Override
+        public boolean hasChildren() {
+            PersistentNode node = find();
+            return node != null && node.hasChildren();
+        }
+
+        @Override
+        public boolean hasChild(String key) {
+            PersistentNode node = find();
+            return node != null && node.getChild(key) != null;
+        }
+
+        @Override
+        public boolean hasNode(String... path) {
+            PersistentNode node = find();
+            return node != null && node.get(ensureCorrectPath(path)) != null;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.flowpowered.persistence.data.ValueHolder;
+
+/**
+ * An immutable node of a {@link PersistentConfiguration}'s tree. Changing a node returns a new root that shares every untouched subtree with the old one, so only the nodes on the changed
+ * path are copied.
+ */
+final class PersistentNode {
+    static final PersistentNode EMPTY = new PersistentNode(null, PersistentChildMap.EMPTY);
+    private final Object value;
+    private final PersistentChildMap children;
+
+    private PersistentNode(Object value, PersistentChildMap children) {
+        this.value = value;
+        this.children = children;
+    }
+
+    /**
+     * Creates a node holding the given value, expanding maps into child nodes the same way {@link ConfigurationNode#setValue(Object)} does.
+     *
+     * @param value The value
+     * @return The node
+     */
+    static PersistentNode of(Object value) {
+        if (value instanceof ValueHolder) {
+            value = ((ValueHolder) value).getValue();
+        }
+        if (value instanceof Map<?, ?>) {
+            PersistentChildMap children = PersistentChildMap.EMPTY;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                children = children.with(entry.getKey().toString(), of(entry.getValue()));
+            }
+            return new PersistentNode(null, children);
+        }
+        return value == null ? EMPTY : new PersistentNode(value, PersistentChildMap.EMPTY);
+    }
+
+    /**
+     * Copies the current contents of a node source into a new tree.
+     *
+     * @param source The source to copy
+     * @return The root of the copy
+     */
+    static PersistentNode copyOf(ConfigurationNodeSource source) {
+        if (!source.hasChildren()) {
+            return source instanceof ConfigurationNode ? of(((ConfigurationNode) source).getValue()) : EMPTY;
+        }
+        PersistentChildMap children = PersistentChildMap.EMPTY;
+        for (Map.Entry<String, ConfigurationNode> entry : source.getChildren().entrySet()) {
+            children = children.with(entry.getKey(), copyOf(entry.getValue()));
+        }
+        return new PersistentNode(null, children);
+    }
+
+    Object getRawValue() {
+        return value;
+    }
+
+    /**
+     * @return The values of the children if there are any, otherwise the raw value
+     */
+    Object getValue() {
+        return children.isEmpty() ? value : getValues();
+    }
+
+    Map<String, Object> getValues() {
+        Map<String, Object> ret = new LinkedHashMap<String, Object>();
+        for (Map.Entry<String, PersistentNode> entry : getChildren().entrySet()) {
+            ret.put(entry.getKey(), entry.getValue().getValue());
+        }
+        return ret;
+    }
+
+    boolean hasChildren() {
+        return !children.isEmpty();
+    }
+
+    PersistentNode getChild(String name) {
+        return children.get(name);
+    }
+
+    /**
+     * @return The children of this node, in the order they were added
+     */
+    Map<String, PersistentNode> getChildren() {
+        return children.toMap();
+    }
+
+    /**
+     * @param path The path elements
+     * @return The node at the given path below this node, or null if there is none
+     */
+    PersistentNode get(String[] path) {
+        PersistentNode node = this;
+        for (int i = 0; i < path.length && node != null; ++i) {
+            node = node.children.get(path[i]);
+        }
+        return node;
+    }
+
+    /**
+     * Returns a copy of this tree with the node at the given path replaced. Missing nodes on the way are created, and nodes that gain children lose their value.
+     *
+     * @param path The path elements
+     * @param index The index of the element this node's child is selected by
+     * @param replacement The new node
+     * @return The new tree
+     */
+    PersistentNode with(String[] path, int index, PersistentNode replacement) {
+        if (index == path.length) {
+            return replacement;
+        }
+        PersistentNode child = children.get(path[index]);
+        PersistentNode newChild = (child == null ? EMPTY : child).with(path, index + 1, replacement);
+        if (newChild == child) {
+            return this;
+        }
+        return new PersistentNode(null, children.with(path[index], newChild));
+    }
+
+    /**
+     * Returns a copy of this tree without the node at the given path.
+     *
+     * @param path The path elements, at least one
+     * @param index The index of the element this node's child is selected by
+     * @return The new tree, or this tree if there was no such node
+     */
+    PersistentNode without(String[] path, int index) {
+        if (index == path.length - 1) {
+            PersistentChildMap newChildren = children.without(path[index]);
+            return newChildren == children ? this : new PersistentNode(value, newChildren);
+        }
+        PersistentNode child = children.get(path[index]);
+        if (child == null) {
+            return this;
+        }
+        PersistentNode newChild = child.without(path, index + 1);
+        return newChild == child ? this : new PersistentNode(value, children.with(path[index], newChild));
+    }
+}
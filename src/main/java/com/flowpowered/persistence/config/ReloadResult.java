@@ -0,0 +1,84 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.config;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Describes what an in-place reload of a configuration changed. Every path stands for the node at it and everything below it, so an added or removed subtree is reported once by its root.
+ *
+ * @see AbstractConfiguration#reload()
+ */
+public class ReloadResult {
+    private final Set<NodePath> addedPaths = new LinkedHashSet<NodePath>();
+    private final Set<NodePath> removedPaths = new LinkedHashSet<NodePath>();
+    private final Set<NodePath> changedPaths = new LinkedHashSet<NodePath>();
+
+    /**
+     * @return The paths of the nodes that were not in the configuration before the reload
+     */
+    public Set<NodePath> getAddedPaths() {
+        return Collections.unmodifiableSet(addedPaths);
+    }
+
+    /**
+     * @return The paths of the nodes that are no longer in the configuration after the reload
+     */
+    public Set<NodePath> getRemovedPaths() {
+        return Collections.unmodifiableSet(removedPaths);
+    }
+
+    /**
+     * @return The paths of the nodes that were kept, but got a different value
+     */
+    public Set<NodePath> getChangedPaths() {
+        return Collections.unmodifiableSet(changedPaths);
+    }
+
+    /**
+     * @return Whether the reload changed nothing
+     */
+    public boolean isEmpty() {
+        return addedPaths.isEmpty() && removedPaths.isEmpty() && changedPaths.isEmpty();
+    }
+
+    void added(ConfigurationNode node) {
+        addedPaths.add(new NodePath(node.getPathElements()));
+    }
+
+    void removed(ConfigurationNode node) {
+        removedPaths.add(new NodePath(node.getPathElements()));
+    }
+
+    void changed(ConfigurationNode node) {
+        changedPaths.add(new NodePath(node.getPathElements()));
+    }
+
+    @Override
+    public String toString() {
+        return "ReloadResult{added=" + addedPaths + ", removed=" + removedPaths + ", changed=" + changedPaths + "}";
+    }
+}
@@ -24,6 +24,7 @@
 package com.flowpowered.persistence.config.commented;
 
 import com.flowpowered.persistence.config.Configuration;
+import com.flowpowered.persistence.config.NodePath;
 
 /**
  * A configuration that accepts comments. <br> All ConfigurationNodes passed to this configuration must be CommentedConfigurationNode.<br> The node getters for this configuration all return
@@ -37,4 +38,7 @@ public interface CommentedConfiguration extends Configuration {
 
     @Override
     public CommentedConfigurationNode getNode(String path);
+
+    @Override
+    public CommentedConfigurationNode getNode(NodePath path);
 }
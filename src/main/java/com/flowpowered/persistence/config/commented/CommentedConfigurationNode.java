@@ -75,6 +75,15 @@ public class CommentedConfigurationNode extends ConfigurationNode {
         this.comment = comment;
     }
 
+    /**
+     * Sets the comment of this node without attaching it, for loaders that build detached nodes with a {@link com.flowpowered.persistence.config.ConfigurationTreeBuilder}
+     *
+     * @param comment The comment lines
+     */
+    public void initComment(String... comment) {
+        this.comment = comment;
+    }
+
     @Override
     public CommentedConfigurationNode createConfigurationNode(String[] path, Object value) {
         return new CommentedConfigurationNode(getConfiguration(), path, value);
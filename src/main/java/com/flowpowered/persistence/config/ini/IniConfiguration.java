@@ -34,7 +34,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -46,7 +45,9 @@ import org.apache.commons.lang3.StringUtils;
 import com.flowpowered.persistence.config.AbstractConfiguration;
 import com.flowpowered.persistence.config.ConfigurationException;
 import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.ConfigurationTreeBuilder;
 import com.flowpowered.persistence.config.FileConfiguration;
+import com.flowpowered.persistence.config.NodePath;
 import com.flowpowered.persistence.config.commented.CommentedConfiguration;
 import com.flowpowered.persistence.config.commented.CommentedConfigurationNode;
 import com.flowpowered.persistence.data.IOFactory;
@@ -99,14 +100,15 @@ public class IniConfiguration extends AbstractConfiguration implements Commented
     @Override
     protected Map<String, ConfigurationNode> loadToNodes() throws ConfigurationException {
         Reader stream = null;
-        Map<String, ConfigurationNode> nodes = new LinkedHashMap<String, ConfigurationNode>();
+        // The nodes are built detached, so parsing doesn't touch the live tree
+        ConfigurationTreeBuilder builder = new ConfigurationTreeBuilder(this);
+        boolean inSection = false;
         try {
             stream = getReader();
             BufferedReader reader = new BufferedReader(stream);
             String line;
             List<String> comments = new ArrayList<String>();
             List<String> curSection = new ArrayList<String>();
-            CommentedConfigurationNode node = null;
             Matcher match;
             while ((line = reader.readLine()) != null) {
                 line = line.trim();
@@ -121,17 +123,16 @@ public class IniConfiguration extends AbstractConfiguration implements Commented
                 }
                 match = SECTION_REGEX.matcher(line);
                 if (match.matches()) {
-                    if (node != null) {
-                        for (ConfigurationNode subNode : readNodeSection(node.getPathElements(), curSection.toArray(new String[curSection.size()]))) {
-                            node.addChild(subNode);
-                        }
+                    if (inSection) {
+                        readNodeSection(builder, curSection.toArray(new String[curSection.size()]));
+                        builder.end();
                     }
-                    node = createConfigurationNode(new String[] {match.group(1)}, null);
+                    builder.begin(match.group(1));
+                    inSection = true;
                     if (comments.size() > 0) {
-                        node.setComment(comments.toArray(new String[comments.size()]));
+                        ((CommentedConfigurationNode) builder.getLastNode()).initComment(comments.toArray(new String[comments.size()]));
                         comments.clear();
                     }
-                    nodes.put(match.group(1), node);
                 } else {
                     if (comments.size() > 0) {
                         for (String comment : comments) {
@@ -143,10 +144,9 @@ public class IniConfiguration extends AbstractConfiguration implements Commented
                 }
             }
 
-            if (node != null && curSection.size() > 0) {
-                for (ConfigurationNode subNode : readNodeSection(node.getPathElements(), curSection.toArray(new String[curSection.size()]))) {
-                    node.addChild(subNode);
-                }
+            if (inSection) {
+                readNodeSection(builder, curSection.toArray(new String[curSection.size()]));
+                builder.end();
             }
         } catch (IOException e) {
             throw new ConfigurationException(e);
@@ -158,7 +158,7 @@ public class IniConfiguration extends AbstractConfiguration implements Commented
                 }
             }
         }
-        return nodes;
+        return builder.build();
     }
 
     @Override
@@ -218,13 +218,11 @@ public class IniConfiguration extends AbstractConfiguration implements Commented
     /**
      * This method reads one section of INI configuration data.
      *
-     * @param parentPath The path of the section containing this data
+     * @param builder The builder to add the section's nodes to, with the section as its current node
      * @param lines The lines of data to read
-     * @return The configuration nodes read from the section
      * @throws ConfigurationException when an invalid node is specified
      */
-    protected List<ConfigurationNode> readNodeSection(String[] parentPath, String[] lines) throws ConfigurationException {
-        List<ConfigurationNode> nodes = new ArrayList<ConfigurationNode>();
+    protected void readNodeSection(ConfigurationTreeBuilder builder, String[] lines) throws ConfigurationException {
         List<String> comment = new ArrayList<String>();
         Matcher match;
         for (String line : lines) {
@@ -237,14 +235,11 @@ public class IniConfiguration extends AbstractConfiguration implements Commented
             if (split.length < 2) {
                 throw new ConfigurationException("Key with no value: " + line);
             }
-            CommentedConfigurationNode node = createConfigurationNode(ArrayUtils.add(parentPath, split[0].trim()), null);
-            node.setValue(fromStringValue(split[1].trim()));
+            builder.value(split[0].trim(), fromStringValue(split[1].trim()));
             if (comment.size() > 0) {
-                node.setComment(comment.toArray(new String[comment.size()]));
+                ((CommentedConfigurationNode) builder.getLastNode()).initComment(comment.toArray(new String[comment.size()]));
             }
-            nodes.add(node);
         }
-        return nodes;
     }
 
     /**
@@ -350,6 +345,11 @@ public class IniConfiguration extends AbstractConfiguration implements Commented
         return (CommentedConfigurationNode) super.getNode(path);
     }
 
+    @Override
+    public CommentedConfigurationNode getNode(NodePath path) {
+        return (CommentedConfigurationNode) super.getNode(path);
+    }
+
     @Override
     public String[] splitNodePath(String path) {
         return getPathSeparatorPattern().split(path, 2);
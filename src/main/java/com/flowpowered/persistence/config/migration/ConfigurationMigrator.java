@@ -83,6 +83,8 @@ public abstract class ConfigurationMigrator {
             } catch (IOException e) {
                 throw new MigrationException(e);
             }
+            // The file was moved away, so it has to be written even if no action changed anything
+            configuration.markDirty();
         }
 
         for (Map.Entry<String[], MigrationAction> entry : getMigrationActions().entrySet()) {
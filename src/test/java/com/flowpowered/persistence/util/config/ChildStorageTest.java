@@ -0,0 +1,87 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ChildStorage;
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.MapConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ChildStorageTest {
+    private static final int CHILDREN = 20;
+
+    private static MapConfiguration build(ChildStorage storage) {
+        MapConfiguration config = new MapConfiguration();
+        config.setChildStorage(storage);
+        for (int i = 0; i < CHILDREN; ++i) {
+            config.getNode("parent", "child" + i).setValue(i);
+        }
+        return config;
+    }
+
+    private static List<String> expectedKeys() {
+        List<String> keys = new ArrayList<String>();
+        for (int i = 0; i < CHILDREN; ++i) {
+            keys.add("child" + i);
+        }
+        return keys;
+    }
+
+    @Test
+    public void testOrderedStrategiesKeepOrder() {
+        for (ChildStorage storage : new ChildStorage[] {ChildStorage.ORDERED, ChildStorage.LINKED}) {
+            MapConfiguration config = build(storage);
+            assertEquals(expectedKeys(), new ArrayList<String>(config.getChild("parent").getChildren().keySet()));
+            config.getNode("parent", "child3").remove();
+            assertEquals(CHILDREN - 1, config.getChild("parent").getChildren().size());
+        }
+    }
+
+    @Test
+    public void testAllStrategiesFindChildren() {
+        for (ChildStorage storage : ChildStorage.values()) {
+            MapConfiguration config = build(storage);
+            ConfigurationNode parent = config.getChild("parent");
+            assertEquals(new HashSet<String>(expectedKeys()), parent.getKeys(false));
+            for (int i = 0; i < CHILDREN; ++i) {
+                assertEquals(i, parent.getChild("child" + i).getInt());
+            }
+            assertSame(storage, config.snapshot().getChildStorage());
+            assertEquals(config.getValues(), config.snapshot().getValues());
+        }
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testNullRejected() {
+        new MapConfiguration().setChildStorage(null);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationException;
+import com.flowpowered.persistence.config.MapConfiguration;
+import com.flowpowered.persistence.config.NodePath;
+import com.flowpowered.persistence.config.PersistentConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationDefaultsTest {
+    private Map<Object, Object> data;
+    private MapConfiguration config;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        data = new HashMap<Object, Object>();
+        data.put("set", "value");
+        config = new MapConfiguration(data);
+        config.load();
+    }
+
+    @Test
+    public void testReadsDoNotModify() {
+        assertEquals("default", config.getNode("missing.node").getString("default"));
+        assertFalse(config.hasNode("missing"));
+        assertFalse(config.isDirty());
+        assertTrue(config.getDefaults().isEmpty());
+        assertNull(config.getNode("missing.node").getString());
+        assertEquals("value", config.getNode("set").getString("default"));
+        assertNull(config.getDefault(NodePath.of("set")));
+    }
+
+    @Test
+    public void testDeclaredDefaultWins() {
+        config.setDefault(NodePath.of("port"), 25565);
+        assertEquals(25565, config.getNode("port").getInt(80));
+        config.getNode("port").setValue(8080);
+        assertEquals(8080, config.getNode("port").getInt());
+        config.setDefault(NodePath.of("port"), null);
+        assertTrue(config.getDefaults().isEmpty());
+        config.setDefault(NodePath.of("server", "motd"), "hello");
+        assertEquals("hello", config.getNode("server", "motd").getString("other"));
+        assertEquals("other", config.getNode("server", "name").getString("other"));
+    }
+
+    @Test
+    public void testNotWritingDefaults() {
+        config.setWritesDefaults(false);
+        assertEquals(1, config.getNode("missing").getInt(1));
+        assertTrue(config.getDefaults().isEmpty());
+    }
+
+    @Test
+    public void testApplyDefaults() throws ConfigurationException {
+        config.setDefault(NodePath.of("missing", "node"), 1);
+        config.setDefault(NodePath.of("set"), "other");
+        config.save();
+        assertEquals("value", data.get("set"));
+        @SuppressWarnings ("unchecked")
+        Map<Object, Object> missing = (Map<Object, Object>) data.get("missing");
+        assertEquals(1, missing.get("node"));
+        assertTrue(config.hasNode("missing", "node"));
+        assertFalse(config.isDirty());
+    }
+
+    @Test
+    public void testSnapshotAndPersistent() throws ConfigurationException {
+        config.setDefault(NodePath.of("missing"), "default");
+        assertEquals("default", config.snapshot().getNode("missing").getString());
+        PersistentConfiguration persistent = new PersistentConfiguration(config);
+        persistent.load();
+        assertEquals("default", persistent.getNode("missing").getString());
+        assertFalse(persistent.isDirty());
+        persistent.applyDefaults();
+        assertTrue(persistent.hasNode("missing"));
+        assertTrue(persistent.isDirty());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.lang.reflect.Field;
+
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.AbstractConfigurationNodeSource;
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.MapConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that the nodes of a loaded configuration tree keep no per-node objects besides themselves and, for nodes with children, their child map. Measuring the heap directly depends on when the
+ * garbage collector runs, so the test inspects the fields that hold those objects instead.
+ */
+public class ConfigurationFootprintTest {
+    private static final int GROUPS = 100;
+    private static final int LEAVES_PER_GROUP = 8;
+
+    private static Object field(Object node, Class<?> owner, String name) throws Exception {
+        Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(node);
+    }
+
+    private static MapConfiguration buildConfiguration() {
+        MapConfiguration config = new MapConfiguration();
+        for (int i = 0; i < GROUPS; ++i) {
+            ConfigurationNode group = config.getChild("group" + i, true);
+            for (int j = 0; j < LEAVES_PER_GROUP; ++j) {
+                group.getChild("key" + j, true).setValue(j);
+            }
+        }
+        return config;
+    }
+
+    private static void assertNoExtraObjects(ConfigurationNode node) throws Exception {
+        assertNull("Attached nodes derive their path", field(node, ConfigurationNode.class, "path"));
+        assertNull(field(node, ConfigurationNode.class, "valueHolder"));
+        assertNull(field(node, AbstractConfigurationNodeSource.class, "cache"));
+    }
+
+    @Test
+    public void testFootprint() throws Exception {
+        MapConfiguration config = buildConfiguration();
+        assertEquals(GROUPS, config.getChildren().size());
+        for (ConfigurationNode group : config.getChildren().values()) {
+            assertNoExtraObjects(group);
+            assertEquals("Small child maps are array backed", "ArrayChildMap", field(group, AbstractConfigurationNodeSource.class, "children").getClass().getSimpleName());
+            assertEquals(LEAVES_PER_GROUP, group.getChildren().size());
+            for (ConfigurationNode leaf : group.getChildren().values()) {
+                assertNoExtraObjects(leaf);
+                assertNull("Leaves have no child map", field(leaf, AbstractConfigurationNodeSource.class, "children"));
+            }
+        }
+    }
+}
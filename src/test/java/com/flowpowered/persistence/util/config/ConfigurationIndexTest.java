@@ -0,0 +1,118 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationException;
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.MapConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationIndexTest {
+    private MapConfiguration config;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        Map<Object, Object> data = new HashMap<Object, Object>();
+        Map<Object, Object> nested = new HashMap<Object, Object>();
+        nested.put("bar", "baz");
+        data.put("foo", nested);
+        config = new MapConfiguration(data);
+        config.setIndexed(true);
+        config.load();
+    }
+
+    @Test
+    public void testLoadedNodesIndexed() {
+        assertTrue(config.hasNode("foo", "bar"));
+        assertEquals("baz", config.getNode("foo", "bar").getValue());
+        assertSame(config.getChild("foo").getChild("bar"), config.getNode("foo.bar"));
+    }
+
+    @Test
+    public void testSetValueIndexed() {
+        ConfigurationNode node = config.getNode("a.b.c");
+        assertFalse(config.hasNode("a", "b", "c"));
+        node.setValue("value");
+        assertTrue(config.hasNode("a", "b", "c"));
+        assertTrue(config.hasNode("a", "b"));
+        assertSame(node, config.getNode("a", "b", "c"));
+    }
+
+    @Test
+    public void testRemoveUnindexes() {
+        config.getNode("foo").remove();
+        assertFalse(config.hasNode("foo", "bar"));
+        assertFalse(config.hasNode("foo"));
+        assertNull(config.getNode("foo.bar").getValue());
+    }
+
+    @Test
+    public void testReplacedChildrenUnindexed() {
+        config.getNode("foo").setValue("flat");
+        assertFalse(config.hasNode("foo", "bar"));
+        assertEquals("flat", config.getNode("foo").getValue());
+    }
+
+    @Test
+    public void testEnableAfterLoad() throws ConfigurationException {
+        config.setIndexed(false);
+        config.getNode("x.y").setValue(1);
+        config.setIndexed(true);
+        assertTrue(config.isIndexed());
+        assertTrue(config.hasNode("x", "y"));
+        assertTrue(config.hasNode("foo", "bar"));
+    }
+
+    @Test
+    public void testSortedIndex() {
+        config.getNode("servers.eu-west.host").setValue("a");
+        config.getNode("servers.eu-central.host").setValue("b");
+        config.getNode("servers.us-east.host").setValue("c");
+        assertEquals(Arrays.asList("servers.eu-central", "servers.eu-central.host", "servers.eu-west", "servers.eu-west.host"), new ArrayList<String>(config.keysWithPrefix("servers.eu-")));
+        config.setSorted(true);
+        assertEquals(Arrays.asList("servers.eu-central", "servers.eu-central.host", "servers.eu-west", "servers.eu-west.host"), new ArrayList<String>(config.keysWithPrefix("servers.eu-")));
+        assertTrue(config.keysWithPrefix("servers.asia").isEmpty());
+        assertEquals(Arrays.asList("foo", "foo.bar"), new ArrayList<String>(config.range("a", "servers")));
+        config.getNode("servers.eu-west").remove();
+        config.getNode("servers.eu-north").setValue(1);
+        assertEquals(Arrays.asList("servers.eu-central", "servers.eu-central.host", "servers.eu-north"), new ArrayList<String>(config.keysWithPrefix("servers.eu-")));
+        assertEquals(config.getKeys(true), config.getSortedKeys());
+        config.setPathSeparator("/");
+        assertEquals(Arrays.asList("servers/eu-central", "servers/eu-central/host"), new ArrayList<String>(config.keysWithPrefix("servers/eu-c")));
+        assertEquals(config.getSortedKeys(), config.snapshot().getSortedKeys());
+    }
+}
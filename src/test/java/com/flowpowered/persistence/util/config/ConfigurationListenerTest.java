@@ -0,0 +1,156 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationEvent;
+import com.flowpowered.persistence.config.ConfigurationException;
+import com.flowpowered.persistence.config.ConfigurationListener;
+import com.flowpowered.persistence.config.MapConfiguration;
+import com.flowpowered.persistence.config.NodePath;
+import com.flowpowered.persistence.config.PersistentConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationListenerTest {
+    private Map<Object, Object> data;
+    private MapConfiguration config;
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        data = new HashMap<Object, Object>();
+        for (int i = 0; i < 100; ++i) {
+            Map<Object, Object> group = new HashMap<Object, Object>();
+            for (int j = 0; j < 10; ++j) {
+                group.put("key" + j, j);
+            }
+            data.put("group" + i, group);
+        }
+        config = new MapConfiguration(data);
+        config.load();
+        listener = new RecordingListener();
+    }
+
+    @Test
+    public void testSetValue() {
+        config.addListener(listener);
+        config.getNode("group1.key1").setValue(1);
+        assertEquals(0, listener.events.size());
+        config.getNode("group1.key1").setValue(100);
+        assertEquals(1, listener.events.size());
+        assertEquals(NodePath.of("group1", "key1"), listener.events.get(0).getChangedPaths().iterator().next());
+    }
+
+    @Test
+    public void testMapValueIsOneEvent() {
+        config.addListener(listener);
+        Map<String, Object> value = new HashMap<String, Object>();
+        value.put("a", 1);
+        value.put("b", 2);
+        config.getNode("new.node").setValue(value);
+        assertEquals(1, listener.events.size());
+        assertEquals(1, listener.events.get(0).getChangedPaths().size());
+        assertTrue(listener.events.get(0).affects(NodePath.of("new", "node", "a")));
+    }
+
+    @Test
+    public void testSubtreeListener() {
+        config.getNode("group1").addListener(listener);
+        config.getNode("group2.key1").setValue(100);
+        assertEquals(0, listener.events.size());
+        config.getNode("group1.key2").setValue(100);
+        config.removeChild("group1");
+        assertEquals(2, listener.events.size());
+        assertEquals(NodePath.of("group1"), listener.events.get(1).getChangedPaths().iterator().next());
+        assertTrue(config.getNode("group1").removeListener(listener));
+        config.getNode("group1.key2").setValue(5);
+        assertEquals(2, listener.events.size());
+    }
+
+    @Test
+    public void testReloadIsOneEvent() throws ConfigurationException {
+        config.addListener(listener);
+        @SuppressWarnings ("unchecked")
+        Map<Object, Object> group = (Map<Object, Object>) data.get("group5");
+        group.put("key3", 42);
+        config.load();
+        assertEquals(1, listener.events.size());
+        assertEquals(1, listener.events.get(0).getChangedPaths().size());
+        assertEquals(NodePath.of("group5", "key3"), listener.events.get(0).getChangedPaths().iterator().next());
+        config.load();
+        assertEquals(1, listener.events.size());
+    }
+
+    @Test
+    public void testExecutor() {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        config.addListener(listener, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        config.getNode("group1.key1").setValue(100);
+        assertEquals(0, listener.events.size());
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        assertEquals(1, listener.events.size());
+    }
+
+    @Test
+    public void testPersistentConfiguration() throws ConfigurationException {
+        PersistentConfiguration persistent = new PersistentConfiguration(config);
+        persistent.getNode("group1").addListener(listener);
+        persistent.getNode("group1.key1").setValue(1);
+        persistent.getNode("group2.key1").setValue(100);
+        assertEquals(0, listener.events.size());
+        persistent.getNode("group1.key1").setValue(100);
+        assertEquals(1, listener.events.size());
+        @SuppressWarnings ("unchecked")
+        Map<Object, Object> group = (Map<Object, Object>) data.get("group1");
+        group.put("key3", 42);
+        persistent.load();
+        assertEquals(2, listener.events.size());
+        assertTrue(listener.events.get(1).affects(NodePath.of("group1", "key3")));
+    }
+
+    private static class RecordingListener implements ConfigurationListener {
+        private final List<ConfigurationEvent> events = new ArrayList<ConfigurationEvent>();
+
+        @Override
+        public void configurationChanged(ConfigurationEvent event) {
+            events.add(event);
+        }
+    }
+}
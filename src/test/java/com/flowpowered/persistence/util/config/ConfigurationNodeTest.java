@@ -37,6 +37,7 @@ import com.flowpowered.persistence.config.MapConfiguration;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 public class ConfigurationNodeTest {
     private Configuration base;
@@ -84,4 +85,18 @@ public class ConfigurationNodeTest {
         assertFalse(base.getChildren().containsKey("to-remove"));
         assertEquals(null, base.getNode("to-remove").getValue());
     }
+
+    @Test
+    public void testCircularInheritance() {
+        ConfigurationNode parent = base.getChild("a", true);
+        ConfigurationNode child = parent.getChild("b", true);
+        child.getChild("c", true).setValue("d");
+        try {
+            child.addChild(parent);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertFalse(child.hasChild("a"));
+        assertEquals("d", base.getNode("a.b.c").getValue());
+    }
 }
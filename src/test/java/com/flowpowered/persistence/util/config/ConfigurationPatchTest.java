@@ -0,0 +1,218 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationEvent;
+import com.flowpowered.persistence.config.ConfigurationException;
+import com.flowpowered.persistence.config.ConfigurationListener;
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.ConfigurationPatch;
+import com.flowpowered.persistence.config.MapConfiguration;
+import com.flowpowered.persistence.config.NodePath;
+import com.flowpowered.persistence.config.PersistentConfiguration;
+import com.flowpowered.persistence.config.yaml.YamlConfiguration;
+import com.flowpowered.persistence.data.IOFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationPatchTest {
+    private MapConfiguration from;
+    private MapConfiguration to;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        from = new MapConfiguration(createData());
+        from.load();
+        to = new MapConfiguration(createData());
+        to.load();
+    }
+
+    private static Map<Object, Object> createData() {
+        Map<Object, Object> data = new HashMap<Object, Object>();
+        for (int i = 0; i < 10; ++i) {
+            Map<Object, Object> group = new HashMap<Object, Object>();
+            for (int j = 0; j < 10; ++j) {
+                group.put("key" + j, j);
+            }
+            data.put("group" + i, group);
+        }
+        return data;
+    }
+
+    @Test
+    public void testContentHash() {
+        assertTrue(from.contentEquals(to));
+        assertEquals(from.getContentHash(), to.getContentHash());
+        assertEquals(from.getNode("group1").getContentHash(), from.getNode("group2").getContentHash());
+        long hash = to.getContentHash();
+        to.getNode("group3", "key4").setValue(40);
+        assertNotEquals(hash, to.getContentHash());
+        assertNotEquals(to.getNode("group2").getContentHash(), to.getNode("group3").getContentHash());
+        assertFalse(from.contentEquals(to));
+        to.getNode("group3", "key4").setValue(4);
+        assertEquals(hash, to.getContentHash());
+        // Swapping values between keys must change the hash even though the same values remain
+        to.getNode("group3", "key4").setValue(5);
+        to.getNode("group3", "key5").setValue(4);
+        assertNotEquals(hash, to.getContentHash());
+    }
+
+    @Test
+    public void testDiff() {
+        assertTrue(ConfigurationPatch.diff(from, to).isEmpty());
+        to.getNode("group1", "key1").setValue("changed");
+        to.getNode("group2").remove();
+        to.getNode("group10", "key0").setValue(0);
+        to.getNode("group3", "key3").setValue(3);
+        ConfigurationPatch patch = ConfigurationPatch.diff(from, to);
+        assertEquals(3, patch.getOperations().size());
+        Map<Object, Object> added = new HashMap<Object, Object>();
+        added.put("key0", 0);
+        assertTrue(patch.getOperations().contains(new ConfigurationPatch.Operation(ConfigurationPatch.Kind.REPLACE, NodePath.of("group1", "key1"), "changed")));
+        assertTrue(patch.getOperations().contains(new ConfigurationPatch.Operation(ConfigurationPatch.Kind.REMOVE, NodePath.of("group2"), null)));
+        assertTrue(patch.getOperations().contains(new ConfigurationPatch.Operation(ConfigurationPatch.Kind.ADD, NodePath.of("group10"), added)));
+    }
+
+    @Test
+    public void testStructureChange() {
+        to.getNode("group1").setValue("flat");
+        ConfigurationPatch patch = ConfigurationPatch.diff(from, to);
+        assertEquals(1, patch.getOperations().size());
+        assertEquals(new ConfigurationPatch.Operation(ConfigurationPatch.Kind.REPLACE, NodePath.of("group1"), "flat"), patch.getOperations().get(0));
+    }
+
+    @Test
+    public void testBranchBecomesEmpty() {
+        ConfigurationNode group = to.getNode("group1");
+        for (String key : new ArrayList<String>(group.getKeys(false))) {
+            group.removeChild(key);
+        }
+        assertTrue(group.isAttached());
+        ConfigurationPatch patch = ConfigurationPatch.diff(from, to);
+        assertEquals(new ConfigurationPatch.Operation(ConfigurationPatch.Kind.REPLACE, NodePath.of("group1"), null), patch.getOperations().get(0));
+        patch.apply(from);
+        assertFalse(from.getNode("group1").hasChildren());
+        assertTrue(from.hasNode("group1"));
+        assertTrue(ConfigurationPatch.diff(from, to).isEmpty());
+    }
+
+    @Test
+    public void testDiffPersistent() {
+        PersistentConfiguration persistent = new PersistentConfiguration(from);
+        assertTrue(ConfigurationPatch.diff(persistent, to).isEmpty());
+        assertEquals(to.getNode("group1").getContentHash(), persistent.getNode("group1").getContentHash());
+        persistent.getNode("group4", "key2").setValue(20);
+        ConfigurationPatch patch = ConfigurationPatch.diff(persistent, to);
+        assertEquals(1, patch.getOperations().size());
+        assertEquals(new ConfigurationPatch.Operation(ConfigurationPatch.Kind.REPLACE, NodePath.of("group4", "key2"), 2), patch.getOperations().get(0));
+    }
+
+    @Test
+    public void testApply() {
+        to.getNode("group1", "key1").setValue("changed");
+        to.getNode("group2").remove();
+        to.getNode("group10", "key0").setValue(0);
+        to.getNode("group5").setValue("flat");
+        ConfigurationPatch patch = ConfigurationPatch.diff(from, to);
+        final List<ConfigurationEvent> events = new ArrayList<ConfigurationEvent>();
+        from.addListener(new ConfigurationListener() {
+            @Override
+            public void configurationChanged(ConfigurationEvent event) {
+                events.add(event);
+            }
+        });
+        patch.apply(from);
+        assertTrue(from.contentEquals(to));
+        assertTrue(ConfigurationPatch.diff(from, to).isEmpty());
+        assertEquals(1, events.size());
+        assertFalse(events.get(0).affects(NodePath.of("group3")));
+    }
+
+    @Test
+    public void testWriteAndRead() throws ConfigurationException {
+        to.getNode("group1", "key1").setValue("changed");
+        to.getNode("group2").remove();
+        to.getNode("group10", "key0").setValue(0);
+        ConfigurationPatch patch = ConfigurationPatch.diff(from, to);
+        IOFactory.String io = new IOFactory.String();
+        patch.write(new YamlConfiguration(io));
+        ConfigurationPatch read = ConfigurationPatch.read(new YamlConfiguration(new IOFactory.String(io.getBuffer().toString())));
+        assertEquals(patch.getOperations(), read.getOperations());
+        read.apply(from);
+        assertTrue(from.contentEquals(to));
+    }
+
+    @Test (expected = ConfigurationException.class)
+    public void testReadMalformed() throws ConfigurationException {
+        ConfigurationPatch.read(new YamlConfiguration(new IOFactory.String("operations:\n- op: rename\n  path: [a]\n")));
+    }
+
+    @Test (expected = ConfigurationException.class)
+    public void testReadWithoutOperations() throws ConfigurationException {
+        ConfigurationPatch.read(new YamlConfiguration(new IOFactory.String("server:\n  port: 25565\n")));
+    }
+
+    @Test
+    public void testDistinctValues() {
+        assertDistinct("Aa", "BB");
+        assertDistinct(1, new ArrayList<Object>());
+        assertDistinct(-1L, 0);
+    }
+
+    private static void assertDistinct(Object a, Object b) {
+        MapConfiguration first = new MapConfiguration();
+        first.getNode("group", "k").setValue(a);
+        first.getNode("group", "other").setValue(1);
+        MapConfiguration second = new MapConfiguration();
+        second.getNode("group", "k").setValue(b);
+        second.getNode("group", "other").setValue(1);
+        assertNotEquals(first.getContentHash(), second.getContentHash());
+        assertFalse(first.contentEquals(second));
+        assertFalse(first.getNode("group", "k").contentEquals(second.getNode("group", "k")));
+        ConfigurationPatch patch = ConfigurationPatch.diff(first, second);
+        assertEquals(1, patch.getOperations().size());
+        assertEquals(new ConfigurationPatch.Operation(ConfigurationPatch.Kind.REPLACE, NodePath.of("group", "k"), b), patch.getOperations().get(0));
+    }
+
+    @Test
+    public void testMutableValue() {
+        List<String> list = new ArrayList<String>();
+        list.add("a");
+        from.getNode("group1", "list").setValue(list);
+        long hash = from.getContentHash();
+        list.add("b");
+        assertNotEquals(hash, from.getContentHash());
+    }
+}
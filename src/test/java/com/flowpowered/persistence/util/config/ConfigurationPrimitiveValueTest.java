@@ -0,0 +1,87 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.MapConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationPrimitiveValueTest {
+    private MapConfiguration config;
+
+    @Before
+    public void setUp() {
+        config = new MapConfiguration();
+    }
+
+    @Test
+    public void testParsedStrings() {
+        ConfigurationNode node = config.getNode("number");
+        node.setValue("42");
+        for (int i = 0; i < 3; ++i) {
+            assertEquals(42, node.getInt());
+            assertEquals(42L, node.getLong());
+            assertEquals(42.0, node.getDouble(), 0);
+        }
+        node.setValue("true");
+        assertTrue(node.getBoolean());
+        assertEquals(7, node.getInt(7));
+        node.setValue("1.5");
+        assertEquals(1.5, node.getDouble(), 0);
+        assertEquals(3, node.getInt(3));
+        assertFalse(node.getBoolean(true));
+    }
+
+    @Test
+    public void testChangedValueIsReparsed() {
+        ConfigurationNode node = config.getNode("number");
+        node.setValue("1");
+        assertEquals(1, node.getInt());
+        node.setValue("2");
+        assertEquals(2, node.getInt());
+        node.setValue(3L);
+        assertEquals(3, node.getInt());
+        assertEquals(3.0, node.getDouble(), 0);
+        node.getChild("child", true).setValue("4");
+        assertEquals(5, node.getInt(5));
+        assertEquals(4, node.getNode("child").getInt());
+    }
+
+    @Test
+    public void testMissingValueReturnsDefault() {
+        config.setWritesDefaults(true);
+        ConfigurationNode node = config.getNode("missing");
+        assertEquals(12, node.getInt(12));
+        assertNull(config.getNode("missing").getValue());
+        assertFalse(config.hasNode("missing"));
+        assertTrue(config.getDefaults().isEmpty());
+    }
+}
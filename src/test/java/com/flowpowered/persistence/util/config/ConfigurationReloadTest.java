@@ -0,0 +1,170 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationEvent;
+import com.flowpowered.persistence.config.ConfigurationException;
+import com.flowpowered.persistence.config.ConfigurationListener;
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.MapConfiguration;
+import com.flowpowered.persistence.config.NodePath;
+import com.flowpowered.persistence.config.ReloadResult;
+import com.flowpowered.persistence.config.ini.StringLoadingIniConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import static com.flowpowered.persistence.config.commented.CommentedConfigurationNode.LINE_SEPARATOR;
+
+public class ConfigurationReloadTest {
+    private Map<Object, Object> data;
+    private Map<Object, Object> server;
+    private MapConfiguration config;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        data = new HashMap<Object, Object>();
+        server = new HashMap<Object, Object>();
+        server.put("host", "localhost");
+        server.put("port", 25565);
+        data.put("server", server);
+        data.put("debug", false);
+        data.put("motd", "hello");
+        config = new MapConfiguration(data);
+        config.load();
+    }
+
+    @Test
+    public void testReloadKeepsNodes() throws ConfigurationException {
+        ConfigurationNode host = config.getNode("server", "host");
+        ConfigurationNode port = config.getNode("server", "port");
+        ConfigurationNode motd = config.getNode("motd");
+        server.put("port", 25566);
+        server.put("timeout", 30);
+        data.remove("debug");
+        ReloadResult result = config.reload();
+        assertSame(host, config.getNode("server", "host"));
+        assertSame(port, config.getNode("server", "port"));
+        assertSame(motd, config.getNode("motd"));
+        assertTrue(port.isAttached());
+        assertEquals(25566, port.getInt());
+        assertEquals(30, config.getNode("server", "timeout").getInt());
+        assertFalse(config.hasNode("debug"));
+        assertEquals(1, result.getAddedPaths().size());
+        assertTrue(result.getAddedPaths().contains(NodePath.of("server", "timeout")));
+        assertEquals(1, result.getRemovedPaths().size());
+        assertTrue(result.getRemovedPaths().contains(NodePath.of("debug")));
+        assertEquals(1, result.getChangedPaths().size());
+        assertTrue(result.getChangedPaths().contains(NodePath.of("server", "port")));
+        assertFalse(config.isDirty());
+    }
+
+    @Test
+    public void testUnchangedReload() throws ConfigurationException {
+        long version = config.getVersion();
+        ReloadResult result = config.reload();
+        assertTrue(result.isEmpty());
+        assertEquals(version, config.getVersion());
+    }
+
+    @Test
+    public void testStructureChanges() throws ConfigurationException {
+        Map<Object, Object> motd = new HashMap<Object, Object>();
+        motd.put("text", "hello");
+        data.put("motd", motd);
+        data.put("server", "localhost:25565");
+        ReloadResult result = config.reload();
+        assertEquals("hello", config.getNode("motd", "text").getString());
+        assertEquals("localhost:25565", config.getNode("server").getString());
+        assertFalse(config.getNode("server").hasChildren());
+        assertTrue(result.getChangedPaths().contains(NodePath.of("motd")));
+        assertTrue(result.getChangedPaths().contains(NodePath.of("server")));
+        assertTrue(result.getAddedPaths().contains(NodePath.of("motd", "text")));
+    }
+
+    @Test
+    public void testReconcilingLoad() throws ConfigurationException {
+        config.setReconcilesOnLoad(true);
+        RecordingListener listener = new RecordingListener();
+        config.addListener(listener);
+        ConfigurationNode host = config.getNode("server", "host");
+        server.put("host", "example.com");
+        config.load();
+        assertSame(host, config.getNode("server", "host"));
+        assertEquals("example.com", host.getString());
+        assertEquals(1, listener.events.size());
+        assertTrue(listener.events.get(0).affects(NodePath.of("server", "host")));
+        assertFalse(listener.events.get(0).affects(NodePath.of("motd")));
+    }
+
+    @Test
+    public void testReplacingLoad() throws ConfigurationException {
+        ConfigurationNode host = config.getNode("server", "host");
+        config.load();
+        assertNotSame(host, config.getNode("server", "host"));
+        assertFalse(host.isAttached());
+    }
+
+    @Test
+    public void testIniReload() throws ConfigurationException {
+        StringLoadingIniConfiguration ini = new StringLoadingIniConfiguration("[s]" + LINE_SEPARATOR + "k=1" + LINE_SEPARATOR + "j=2" + LINE_SEPARATOR);
+        ini.load();
+        RecordingListener listener = new RecordingListener();
+        ini.addListener(listener);
+        ConfigurationNode section = ini.getNode("s");
+        ConfigurationNode k = ini.getNode("s", "k");
+        ConfigurationNode j = ini.getNode("s", "j");
+        ini.setValue("# A comment" + LINE_SEPARATOR + "[s]" + LINE_SEPARATOR + "k=1" + LINE_SEPARATOR + "j=3" + LINE_SEPARATOR);
+        ReloadResult result = ini.reload();
+        assertSame(section, ini.getNode("s"));
+        assertSame(k, ini.getNode("s", "k"));
+        assertSame(j, ini.getNode("s", "j"));
+        assertEquals(3, j.getInt());
+        assertTrue(result.getAddedPaths().isEmpty());
+        assertTrue(result.getRemovedPaths().isEmpty());
+        assertEquals(1, result.getChangedPaths().size());
+        assertTrue(result.getChangedPaths().contains(NodePath.of("s", "j")));
+        assertEquals(1, listener.events.size());
+    }
+
+    private static class RecordingListener implements ConfigurationListener {
+        private final List<ConfigurationEvent> events = new ArrayList<ConfigurationEvent>();
+
+        @Override
+        public void configurationChanged(ConfigurationEvent event) {
+            events.add(event);
+        }
+    }
+}
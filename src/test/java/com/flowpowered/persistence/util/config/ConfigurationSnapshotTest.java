@@ -0,0 +1,110 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationException;
+import com.flowpowered.persistence.config.ConfigurationSnapshot;
+import com.flowpowered.persistence.config.ConfigurationSnapshotHolder;
+import com.flowpowered.persistence.config.MapConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationSnapshotTest {
+    private Map<Object, Object> data;
+    private MapConfiguration config;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        data = new HashMap<Object, Object>();
+        Map<Object, Object> nested = new HashMap<Object, Object>();
+        nested.put("bar", "baz");
+        data.put("foo", nested);
+        data.put("list", new ArrayList<String>(Arrays.asList("a", "b")));
+        config = new MapConfiguration(data);
+        config.load();
+    }
+
+    @Test
+    public void testSnapshotIsCopy() {
+        ConfigurationSnapshot snapshot = config.snapshot();
+        assertTrue(snapshot.isReadOnly());
+        assertFalse(config.isReadOnly());
+        assertEquals("baz", snapshot.getNode("foo.bar").getValue());
+        config.getNode("foo.bar").setValue("changed");
+        @SuppressWarnings ("unchecked")
+        List<String> list = (List<String>) config.getNode("list").getValue();
+        list.add("c");
+        assertEquals("baz", snapshot.getNode("foo.bar").getValue());
+        assertEquals(Arrays.asList("a", "b"), snapshot.getNode("list").getValue());
+        assertSame(snapshot, snapshot.snapshot());
+    }
+
+    @Test (expected = UnsupportedOperationException.class)
+    public void testSetValueRejected() {
+        config.snapshot().getNode("foo.bar").setValue("changed");
+    }
+
+    @Test (expected = UnsupportedOperationException.class)
+    public void testSetMissingValueRejected() {
+        config.snapshot().getNode("missing").setValue("changed");
+    }
+
+    @Test (expected = UnsupportedOperationException.class)
+    public void testRemoveRejected() {
+        config.snapshot().getNode("foo").remove();
+    }
+
+    @Test
+    public void testReadsDoNotWriteDefaults() {
+        ConfigurationSnapshot snapshot = config.snapshot();
+        assertEquals("default", snapshot.getNode("missing").getString("default"));
+        assertFalse(snapshot.hasNode("missing"));
+    }
+
+    @Test
+    public void testHolderReload() throws ConfigurationException {
+        ConfigurationSnapshotHolder holder = new ConfigurationSnapshotHolder(config);
+        ConfigurationSnapshot first = holder.get();
+        data.put("added", 5);
+        ConfigurationSnapshot second = holder.reload();
+        assertNotSame(first, second);
+        assertSame(second, holder.get());
+        assertNull(first.getNode("added").getValue());
+        assertEquals(5, holder.get().getNode("added").getInt());
+    }
+}
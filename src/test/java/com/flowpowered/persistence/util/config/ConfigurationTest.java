@@ -23,9 +23,12 @@
  */
 package com.flowpowered.persistence.util.config;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -33,8 +36,12 @@ import com.flowpowered.persistence.config.ConfigurationException;
 import com.flowpowered.persistence.config.ConfigurationNode;
 import com.flowpowered.persistence.config.MapConfiguration;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class ConfigurationTest {
@@ -97,6 +104,43 @@ public class ConfigurationTest {
         assertEquals(TEST_VALUE, config.getNode(TEST_PATH).getString());
     }
 
+    @Test
+    public void testMissingNodesNotShared() {
+        ConfigurationNode first = config.getNode("missing.node");
+        ConfigurationNode second = config.getNode("missing", "node");
+        assertNotSame(first, second);
+        assertEquals(7, first.getInt(7));
+        assertFalse(first.isAttached());
+        assertFalse(config.hasNode("missing"));
+        ConfigurationNode child = config.getNode("foo").getChild("missing");
+        assertArrayEquals(new String[] {"foo", "missing"}, child.getPathElements());
+        assertFalse(child.isAttached());
+        first.setValue(TEST_VALUE);
+        assertTrue(first.isAttached());
+        assertNull(second.getValue());
+        assertSame(first, config.getNode("missing.node"));
+        child.setValue(TEST_VALUE);
+        assertSame(child, config.getNode("foo", "missing"));
+    }
+
+    @Test
+    public void testMissingKeyReadsDoNotAllocate() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        long thread = Thread.currentThread().getId();
+        ConfigurationNode missing = config.getNode("foo", "missing");
+        long sum = 0;
+        long before = allocations.getThreadAllocatedBytes(thread);
+        before = allocations.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 10000; ++i) {
+            sum += missing.getInt(i) + missing.getLong(i) + (long) missing.getDouble(i) + (missing.getBoolean(true) ? 1 : 0) + missing.getString("default").length();
+        }
+        long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+        assertTrue(sum > 0);
+        assertTrue("Reading a missing key allocated " + allocated + " bytes", allocated < 10000);
+    }
+
     @Test
     public void testPathSeparator() {
         String actualValue = config.getNode("foo", "bar").getString();
@@ -0,0 +1,148 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.Configuration;
+import com.flowpowered.persistence.config.ConfigurationEditor;
+import com.flowpowered.persistence.config.ConfigurationEvent;
+import com.flowpowered.persistence.config.ConfigurationException;
+import com.flowpowered.persistence.config.ConfigurationListener;
+import com.flowpowered.persistence.config.ConfigurationSnapshot;
+import com.flowpowered.persistence.config.ConfigurationSnapshotHolder;
+import com.flowpowered.persistence.config.ConfigurationTransaction;
+import com.flowpowered.persistence.config.MapConfiguration;
+import com.flowpowered.persistence.config.NodePath;
+import com.flowpowered.persistence.config.PersistentConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConfigurationTransactionTest {
+    private static final ConfigurationEditor EDITOR = new ConfigurationEditor() {
+        @Override
+        public void edit(ConfigurationTransaction transaction) {
+            transaction.set("foo.bar", "changed")
+                    .set(NodePath.of("a", "b", "c"), 1)
+                    .set("a.b.d", 2)
+                    .remove("other")
+                    .set("gone.soon", 3)
+                    .remove("gone")
+                    .set("replaced.child", 4)
+                    .set("replaced", 5);
+        }
+    };
+
+    private MapConfiguration config;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        Map<Object, Object> data = new HashMap<Object, Object>();
+        Map<Object, Object> nested = new HashMap<Object, Object>();
+        nested.put("bar", "baz");
+        nested.put("count", 3);
+        data.put("foo", nested);
+        data.put("other", "value");
+        config = new MapConfiguration(data);
+        config.load();
+    }
+
+    private void checkEdited(Configuration config) {
+        assertEquals("changed", config.getNode("foo.bar").getValue());
+        assertEquals(3, config.getNode("foo.count").getValue());
+        assertEquals(1, config.getNode("a.b.c").getValue());
+        assertEquals(2, config.getNode("a.b.d").getValue());
+        assertFalse(config.hasChild("other"));
+        assertFalse(config.hasChild("gone"));
+        assertEquals(5, config.getNode("replaced").getValue());
+        assertFalse(config.getNode("replaced").hasChildren());
+    }
+
+    @Test
+    public void testEdit() {
+        config.edit(EDITOR);
+        checkEdited(config);
+        assertTrue(config.getNode("a.b.c").isAttached());
+    }
+
+    @Test
+    public void testEditIsOneEvent() {
+        final List<ConfigurationEvent> events = new ArrayList<ConfigurationEvent>();
+        config.addListener(new ConfigurationListener() {
+            @Override
+            public void configurationChanged(ConfigurationEvent event) {
+                events.add(event);
+            }
+        });
+        config.edit(EDITOR);
+        assertEquals(1, events.size());
+        assertTrue(events.get(0).affects(NodePath.of("other")));
+        assertTrue(events.get(0).affects(NodePath.of("a", "b", "d")));
+    }
+
+    @Test
+    public void testFailingEditorChangesNothing() {
+        long version = config.getVersion();
+        try {
+            config.edit(new ConfigurationEditor() {
+                @Override
+                public void edit(ConfigurationTransaction transaction) {
+                    transaction.set("foo.bar", "changed");
+                    throw new IllegalStateException();
+                }
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals("baz", config.getNode("foo.bar").getValue());
+        assertEquals(version, config.getVersion());
+    }
+
+    @Test
+    public void testSnapshotHolderEdit() {
+        ConfigurationSnapshotHolder holder = new ConfigurationSnapshotHolder(config);
+        ConfigurationSnapshot before = holder.get();
+        holder.edit(EDITOR);
+        assertEquals("baz", before.getNode("foo.bar").getValue());
+        checkEdited(holder.get());
+    }
+
+    @Test
+    public void testPersistentEdit() {
+        PersistentConfiguration persistent = new PersistentConfiguration(config);
+        PersistentConfiguration fork = persistent.fork();
+        persistent.edit(EDITOR);
+        checkEdited(persistent);
+        assertEquals("baz", fork.getNode("foo.bar").getValue());
+    }
+}
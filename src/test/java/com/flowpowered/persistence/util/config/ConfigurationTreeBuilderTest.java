@@ -0,0 +1,93 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationEvent;
+import com.flowpowered.persistence.config.ConfigurationListener;
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.ConfigurationTreeBuilder;
+import com.flowpowered.persistence.config.MapConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationTreeBuilderTest {
+    @Test
+    public void testStreamingAttach() {
+        MapConfiguration config = new MapConfiguration();
+        RecordingListener listener = new RecordingListener();
+        config.addListener(listener);
+        new ConfigurationTreeBuilder(config)
+                .begin("server")
+                .value("port", 25565)
+                .begin("motd")
+                .value("text", "hello")
+                .end()
+                .end()
+                .value("debug", true)
+                .attach();
+        assertEquals(25565, config.getNode("server", "port").getInt());
+        assertEquals("hello", config.getNode("server", "motd", "text").getString());
+        assertTrue(config.getNode("debug").getBoolean());
+        assertEquals("server.motd.text", config.getNode("server", "motd", "text").getPath());
+        assertEquals(1, listener.events.size());
+    }
+
+    @Test
+    public void testBuildIsDetached() {
+        MapConfiguration config = new MapConfiguration();
+        Map<Object, Object> group = new HashMap<Object, Object>();
+        group.put("key", "value");
+        Map<Object, Object> data = new HashMap<Object, Object>();
+        data.put("group", group);
+        Map<String, ConfigurationNode> nodes = new ConfigurationTreeBuilder(config).putAll(data).build();
+        assertEquals(1, nodes.size());
+        ConfigurationNode node = nodes.get("group");
+        assertFalse(node.isAttached());
+        assertEquals("value", node.getNode("key").getString());
+        assertFalse(config.getNode("group").isAttached());
+    }
+
+    @Test (expected = IllegalStateException.class)
+    public void testUnbalancedEnd() {
+        new ConfigurationTreeBuilder(new MapConfiguration()).end();
+    }
+
+    private static class RecordingListener implements ConfigurationListener {
+        private final List<ConfigurationEvent> events = new ArrayList<ConfigurationEvent>();
+
+        @Override
+        public void configurationChanged(ConfigurationEvent event) {
+            events.add(event);
+        }
+    }
+}
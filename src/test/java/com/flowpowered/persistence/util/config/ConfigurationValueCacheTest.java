@@ -0,0 +1,151 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationException;
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.MapConfiguration;
+import com.flowpowered.persistence.config.NodePath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ConfigurationValueCacheTest {
+    @SuppressWarnings ("unused")
+    private static List<Integer> integerList;
+    private MapConfiguration config;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        Map<Object, Object> data = new HashMap<Object, Object>();
+        for (int i = 0; i < 3; ++i) {
+            Map<Object, Object> group = new HashMap<Object, Object>();
+            group.put("a", i);
+            group.put("b", "value" + i);
+            data.put("group" + i, group);
+        }
+        config = new MapConfiguration(data);
+        config.load();
+        config.setCachesValues(true);
+    }
+
+    @Test
+    public void testRepeatedReadsShareMap() {
+        Map<String, Object> values = config.getValues();
+        assertSame(values, config.getValues());
+        assertSame(values.get("group1"), config.getNode("group1").getValue());
+    }
+
+    @Test
+    public void testChangeInvalidatesAncestorsOnly() {
+        Map<String, Object> values = config.getValues();
+        Object group0 = config.getNode("group0").getValue();
+        Object group1 = config.getNode("group1").getValue();
+        config.getNode("group1.a").setValue(42);
+        Map<String, Object> newValues = config.getValues();
+        assertNotSame(values, newValues);
+        assertSame(group0, config.getNode("group0").getValue());
+        assertNotSame(group1, config.getNode("group1").getValue());
+        @SuppressWarnings ("unchecked")
+        Map<String, Object> newGroup1 = (Map<String, Object>) newValues.get("group1");
+        assertEquals(42, newGroup1.get("a"));
+    }
+
+    @Test
+    public void testStructureChangesInvalidate() {
+        ConfigurationNode group = config.getNode("group2");
+        Map<String, Object> values = group.getValues();
+        group.getChild("c", true).setValue(true);
+        assertEquals(3, group.getValues().size());
+        group.removeChild("a");
+        assertEquals(2, group.getValues().size());
+        assertEquals(2, values.size());
+    }
+
+    @Test
+    public void testDefaultInvalidates() {
+        ConfigurationNode group = config.getNode("group1");
+        group.getChild("c", true);
+        assertNull(group.getValues().get("c"));
+        config.setDefault(NodePath.of("group1", "c"), 5);
+        assertEquals(5, group.getValues().get("c"));
+    }
+
+    @Test (expected = UnsupportedOperationException.class)
+    public void testCachedMapIsUnmodifiable() {
+        config.getValues().put("other", 1);
+    }
+
+    @Test
+    public void testDisabled() {
+        config.setCachesValues(false);
+        Map<String, Object> values = config.getValues();
+        values.put("other", 1);
+        assertNotSame(values, config.getValues());
+    }
+
+    @Test
+    public void testTypedValueReused() {
+        ConfigurationNode node = config.getNode("number");
+        node.setValue("123456789");
+        Object number = node.getTypedValue(Long.class);
+        assertEquals((Object) 123456789L, number);
+        assertSame(number, node.getTypedValue(Long.class));
+        assertEquals("value1", config.getNode("group1.b").getTypedValue(String.class));
+        node.setValue("987654321");
+        assertEquals((Object) 987654321L, node.getTypedValue(Long.class));
+    }
+
+    @Test
+    @SuppressWarnings ("unchecked")
+    public void testMutableTypedValueNotShared() throws NoSuchFieldException {
+        Type type = ConfigurationValueCacheTest.class.getDeclaredField("integerList").getGenericType();
+        ConfigurationNode node = config.getNode("list");
+        node.setValue(Arrays.asList("1", "2", "3"));
+        List<Integer> list = (List<Integer>) node.getTypedValue(type);
+        assertEquals(Arrays.asList(1, 2, 3), list);
+        list.add(4);
+        assertEquals(Arrays.asList(1, 2, 3), node.getTypedValue(type));
+        assertNotSame(list, node.getTypedValue(type));
+    }
+
+    @Test
+    public void testTypedValueFollowsChildren() {
+        ConfigurationNode group = config.getNode("group0");
+        assertEquals(2, group.getTypedValue(Map.class).size());
+        group.getChild("c", true).setValue(1);
+        assertEquals(3, group.getTypedValue(Map.class).size());
+    }
+}
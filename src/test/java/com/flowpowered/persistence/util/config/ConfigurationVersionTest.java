@@ -0,0 +1,158 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationException;
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.MapConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationVersionTest {
+    private CountingConfiguration config;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        Map<Object, Object> data = new HashMap<Object, Object>();
+        Map<Object, Object> nested = new HashMap<Object, Object>();
+        nested.put("bar", "baz");
+        nested.put("count", 3);
+        data.put("foo", nested);
+        data.put("other", "value");
+        config = new CountingConfiguration(data);
+        config.load();
+    }
+
+    @Test
+    public void testCleanAfterLoad() throws ConfigurationException {
+        assertFalse(config.isDirty());
+        config.save();
+        assertEquals(0, config.saves);
+    }
+
+    @Test
+    public void testNewConfigurationIsDirty() throws ConfigurationException {
+        CountingConfiguration fresh = new CountingConfiguration(new HashMap<Object, Object>());
+        assertTrue(fresh.isDirty());
+        fresh.save();
+        assertEquals(1, fresh.saves);
+        assertFalse(fresh.isDirty());
+    }
+
+    @Test
+    public void testVersionPropagatesToAncestors() {
+        ConfigurationNode foo = config.getNode("foo");
+        ConfigurationNode bar = config.getNode("foo.bar");
+        ConfigurationNode count = config.getNode("foo.count");
+        ConfigurationNode other = config.getNode("other");
+        long fooVersion = foo.getVersion();
+        long barVersion = bar.getVersion();
+        long countVersion = count.getVersion();
+        long otherVersion = other.getVersion();
+        long configVersion = config.getVersion();
+        bar.setValue("changed");
+        assertTrue(bar.getVersion() > barVersion);
+        assertTrue(foo.getVersion() > fooVersion);
+        assertTrue(config.getVersion() > configVersion);
+        assertEquals(countVersion, count.getVersion());
+        assertEquals(otherVersion, other.getVersion());
+        assertTrue(config.isDirty());
+    }
+
+    @Test
+    public void testSettingEqualValueKeepsClean() throws ConfigurationException {
+        long version = config.getVersion();
+        config.getNode("foo.bar").setValue("baz");
+        config.getNode("foo.count").setValue(3);
+        assertEquals(version, config.getVersion());
+        assertFalse(config.isDirty());
+    }
+
+    @Test
+    public void testSettingChangedListMarksDirty() throws ConfigurationException {
+        List<Object> list = new ArrayList<Object>();
+        list.add("a");
+        ConfigurationNode node = config.getNode("list");
+        node.setValue(list);
+        config.save();
+        assertEquals(1, config.saves);
+        long version = node.getVersion();
+        list.add("b");
+        node.setValue(list);
+        assertTrue(node.getVersion() > version);
+        assertTrue(config.isDirty());
+        config.save();
+        assertEquals(2, config.saves);
+    }
+
+    @Test
+    public void testSaveAfterChange() throws ConfigurationException {
+        config.getNode("foo.count").setValue(4);
+        config.save();
+        assertEquals(1, config.saves);
+        assertFalse(config.isDirty());
+        config.save();
+        assertEquals(1, config.saves);
+        config.removeChild("other");
+        assertTrue(config.isDirty());
+        config.save();
+        assertEquals(2, config.saves);
+    }
+
+    @Test
+    public void testMarkDirty() throws ConfigurationException {
+        config.markDirty();
+        assertTrue(config.isDirty());
+        config.save();
+        assertEquals(1, config.saves);
+        config.getNode("other").setValue("changed");
+        config.markClean();
+        config.save();
+        assertEquals(1, config.saves);
+    }
+
+    private static class CountingConfiguration extends MapConfiguration {
+        private int saves;
+
+        public CountingConfiguration(Map<?, ?> map) {
+            super(map);
+        }
+
+        @Override
+        protected void saveFromMap(Map<?, ?> map) {
+            ++saves;
+            super.saveFromMap(map);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.ConfigurationNodeSource;
+import com.flowpowered.persistence.config.MapConfiguration;
+import com.flowpowered.persistence.config.NodeVisitor;
+import com.flowpowered.persistence.config.PersistentConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationWalkTest {
+    private MapConfiguration config;
+
+    @Before
+    public void setUp() {
+        config = new MapConfiguration();
+        config.getNode("a.b.c").setValue(1);
+        config.getNode("a.b.d").setValue(2);
+        config.getNode("a.e").setValue(3);
+        config.getNode("f").setValue(4);
+    }
+
+    private static List<String> walk(ConfigurationNodeSource source, final String skip) {
+        final List<String> paths = new ArrayList<String>();
+        source.walk(new NodeVisitor() {
+            @Override
+            public boolean visit(CharSequence path, ConfigurationNode node) {
+                paths.add(path.toString());
+                return !path.toString().equals(skip);
+            }
+        });
+        return paths;
+    }
+
+    @Test
+    public void testWalk() {
+        assertEquals(Arrays.asList("a", "a.b", "a.b.c", "a.b.d", "a.e", "f"), walk(config, null));
+        assertEquals(Arrays.asList("b", "b.c", "b.d", "e"), walk(config.getNode("a"), null));
+    }
+
+    @Test
+    public void testSkipChildren() {
+        assertEquals(Arrays.asList("a", "a.b", "a.e", "f"), walk(config, "a.b"));
+    }
+
+    @Test
+    public void testVisitedNodes() {
+        config.walk(new NodeVisitor() {
+            @Override
+            public boolean visit(CharSequence path, ConfigurationNode node) {
+                assertEquals(path.toString(), node.getPath());
+                return true;
+            }
+        });
+    }
+
+    @Test
+    public void testDeepKeys() {
+        assertEquals(Arrays.asList("a", "a.b", "a.b.c", "a.b.d", "a.e", "f"), new ArrayList<String>(config.getKeys(true)));
+        ConfigurationNode node = config.getNode("f");
+        for (int i = 0; i < 1000; ++i) {
+            node = node.getChild("f", true);
+        }
+        assertEquals(1006, config.getKeys(true).size());
+    }
+
+    @Test
+    public void testPersistentWalk() {
+        PersistentConfiguration persistent = new PersistentConfiguration(config);
+        List<String> paths = walk(persistent, null);
+        assertEquals(6, paths.size());
+        assertTrue(paths.containsAll(walk(config, null)));
+        assertEquals(4, walk(persistent.getNode("a"), null).size());
+    }
+}
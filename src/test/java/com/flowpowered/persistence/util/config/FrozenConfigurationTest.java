@@ -0,0 +1,97 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.FrozenConfiguration;
+import com.flowpowered.persistence.config.MapConfiguration;
+import com.flowpowered.persistence.config.NodePath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FrozenConfigurationTest {
+    private MapConfiguration config;
+    private FrozenConfiguration frozen;
+
+    @Before
+    public void setUp() {
+        config = new MapConfiguration();
+        for (int i = 0; i < 100; ++i) {
+            config.getNode("group" + i % 7, "key" + i).setValue(String.valueOf(i));
+        }
+        config.getNode("flag").setValue("true");
+        config.getNode("a very long path element that is longer than sixty-four characters, so its hash needs a loop").setValue(1);
+        frozen = config.freeze();
+    }
+
+    @Test
+    public void testLookups() {
+        for (int i = 0; i < 100; ++i) {
+            String group = "group" + i % 7;
+            String key = "key" + i;
+            assertEquals(i, frozen.getNode(group + "." + key).getInt());
+            assertSame(frozen.getNode(group + "." + key), frozen.getNode(group, key));
+            assertSame(frozen.getNode(group, key), frozen.getNode(NodePath.of(group, key)));
+            assertTrue(frozen.hasNode(group, key));
+        }
+        assertTrue(frozen.getNode("flag").getBoolean());
+        assertTrue(frozen.hasNode("group3"));
+        assertEquals(1, frozen.getNode("a very long path element that is longer than sixty-four characters, so its hash needs a loop").getInt());
+        assertFalse(frozen.hasNode("group3", "missing"));
+        assertNull(frozen.getNode("group3.missing").getValue());
+        assertEquals(config.getValues(), frozen.getValues());
+    }
+
+    @Test
+    public void testIndependentOfSource() {
+        config.getNode("group1.key1").setValue("changed");
+        assertEquals(1, frozen.getNode("group1.key1").getInt());
+        assertSame(frozen, frozen.freeze());
+        assertSame(frozen, frozen.snapshot());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void testEmptyPathRejected() {
+        frozen.hasNode();
+    }
+
+    @Test (expected = UnsupportedOperationException.class)
+    public void testModificationRejected() {
+        frozen.getNode("group1.key1").setValue(2);
+    }
+
+    @Test
+    public void testSeparator() {
+        config.setPathSeparator("/");
+        FrozenConfiguration slashed = config.freeze();
+        assertEquals(8, slashed.getNode("group1/key8").getInt());
+        assertSame(slashed.getNode("group1/key8"), slashed.getNode("group1", "key8"));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationException;
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.LayeredConfiguration;
+import com.flowpowered.persistence.config.MapConfiguration;
+import com.flowpowered.persistence.config.NodePath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LayeredConfigurationTest {
+    private MapConfiguration host;
+    private MapConfiguration site;
+    private MapConfiguration bundled;
+    private LayeredConfiguration config;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        host = new MapConfiguration();
+        site = new MapConfiguration();
+        bundled = new MapConfiguration();
+        config = new LayeredConfiguration(host, site, bundled);
+        config.setWritesDefaults(false);
+        bundled.getNode("db.host").setValue("localhost");
+        bundled.getNode("db.port").setValue(5432);
+        bundled.getNode("name").setValue("service");
+        site.getNode("db.host").setValue("db.example.com");
+        host.getNode("name").setValue("host1");
+    }
+
+    @Test
+    public void testFirstHitWins() {
+        assertEquals("db.example.com", config.getNode("db.host").getString());
+        assertEquals(5432, config.getNode("db", "port").getInt());
+        assertEquals("host1", config.getNode("name").getString());
+        assertTrue(config.hasNode("db", "port"));
+        assertFalse(config.hasNode("db", "user"));
+        assertNull(config.getNode("db.user").getValue());
+        assertEquals(new HashSet<String>(Arrays.asList("name", "db", "db.host", "db.port")), config.getKeys(true));
+    }
+
+    @Test
+    public void testMergedValues() {
+        Map<String, Object> db = new HashMap<String, Object>();
+        db.put("host", "db.example.com");
+        db.put("port", 5432);
+        Map<String, Object> expected = new HashMap<String, Object>();
+        expected.put("db", db);
+        expected.put("name", "host1");
+        assertEquals(expected, config.getValues());
+        assertEquals(expected, config.snapshot().getValues());
+    }
+
+    @Test
+    public void testLayerChangesInvalidate() {
+        assertEquals("db.example.com", config.getNode("db.host").getString());
+        assertSame(config.getNode("db.host"), config.getNode("db.host"));
+        host.getNode("db.host").setValue("override");
+        assertEquals("override", config.getNode("db.host").getString());
+        host.getNode("db.host").remove();
+        site.getNode("db.host").remove();
+        assertEquals("localhost", config.getNode("db.host").getString());
+        assertFalse(config.hasNode("db", "user"));
+        bundled.getNode("db.user").setValue("admin");
+        assertTrue(config.hasNode("db", "user"));
+    }
+
+    @Test
+    public void testValueHidesLowerChildren() {
+        site.getNode("db").setValue("sqlite");
+        assertFalse(config.hasNode("db", "port"));
+        assertEquals("sqlite", config.getValues().get("db"));
+        assertEquals(new HashSet<String>(Arrays.asList("name", "db")), config.getKeys(true));
+    }
+
+    @Test
+    public void testWritesToLowerLayerNodesOverride() {
+        ConfigurationNode port = config.getNode("db.port");
+        assertEquals(5432, port.getInt());
+        port.setValue(6543);
+        assertEquals(6543, host.getNode("db.port").getInt());
+        assertEquals(5432, bundled.getNode("db.port").getInt());
+        assertEquals(6543, config.getNode("db.port").getInt());
+        config.getNode("db").getChild("user", true).setValue("admin");
+        assertTrue(host.hasNode("db", "user"));
+        assertFalse(site.hasNode("db", "user"));
+    }
+
+    @Test
+    public void testDefaultDoesNotHide() {
+        bundled.getNode("pool.size").setValue(4);
+        site.getChild("pool", true);
+        site.setDefault(NodePath.of("pool"), "disabled");
+        assertTrue(config.hasNode("pool", "size"));
+        assertEquals(4, config.getNode("pool.size").getInt());
+    }
+
+    @Test
+    public void testWritesGoToTopLayer() {
+        config.getChild("added", true).setValue(1);
+        assertTrue(host.hasChild("added"));
+        assertFalse(site.hasChild("added"));
+        assertEquals(1, config.getNode("added").getInt());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationException;
+import com.flowpowered.persistence.config.MapConfiguration;
+import com.flowpowered.persistence.config.NodePath;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NodePathTest {
+    private static final NodePath FOO_BAR = NodePath.of("foo", "bar");
+    private MapConfiguration config;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        Map<Object, Object> data = new HashMap<Object, Object>();
+        Map<Object, Object> nested = new HashMap<Object, Object>();
+        nested.put("bar", "baz");
+        data.put("foo", nested);
+        config = new MapConfiguration(data);
+        config.load();
+    }
+
+    @Test
+    public void testCompiledPathsReused() {
+        assertEquals(FOO_BAR, NodePath.of("foo", "bar"));
+        assertEquals(FOO_BAR, config.compilePath("foo.bar"));
+        assertSame(config.compilePath("foo.bar"), config.compilePath("foo.bar"));
+    }
+
+    @Test
+    public void testElementsAreCopied() {
+        String[] elements = {"copied", "path"};
+        NodePath path = NodePath.of(elements);
+        elements[0] = "changed";
+        assertArrayEquals(new String[] {"copied", "path"}, path.getElements());
+        assertEquals("path", path.getName());
+        assertEquals(2, path.size());
+    }
+
+    @Test
+    public void testGetNode() {
+        assertEquals("baz", config.getNode(FOO_BAR).getValue());
+        assertTrue(config.hasNode(FOO_BAR));
+        assertSame(config.getNode("foo", "bar"), config.getNode(FOO_BAR));
+        assertFalse(config.hasNode(NodePath.of("foo", "missing")));
+    }
+
+    @Test
+    public void testPathSeparatorChange() {
+        config.setPathSeparator("/");
+        assertEquals(NodePath.of("foo.bar"), config.compilePath("foo.bar"));
+        assertEquals(FOO_BAR, config.compilePath("foo/bar"));
+        config.setPathSeparator(".");
+    }
+}
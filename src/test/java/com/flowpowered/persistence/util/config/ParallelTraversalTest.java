@@ -0,0 +1,104 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.MapConfiguration;
+import com.flowpowered.persistence.config.NodeReducer;
+import com.flowpowered.persistence.config.ParallelTraversal;
+import com.flowpowered.persistence.config.PersistentConfiguration;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParallelTraversalTest {
+    private static final NodeReducer<Long> SUM = new NodeReducer<Long>() {
+        @Override
+        public Long identity() {
+            return 0L;
+        }
+
+        @Override
+        public Long reduce(ConfigurationNode node) {
+            return node.hasChildren() ? 0L : node.getLong();
+        }
+
+        @Override
+        public Long combine(Long first, Long second) {
+            return first + second;
+        }
+    };
+    private MapConfiguration config;
+    private ForkJoinPool pool;
+    private ParallelTraversal traversal;
+    private long expectedSum;
+
+    @Before
+    public void setUp() {
+        config = new MapConfiguration();
+        for (int i = 0; i < 20; ++i) {
+            for (int j = 0; j < 20; ++j) {
+                config.getNode("a" + i, "b" + j, "c").setValue(i * j);
+                expectedSum += i * j;
+            }
+        }
+        // Wide enough to be split into ranges
+        ConfigurationNode wide = config.getChild("wide", true);
+        for (int i = 0; i < 5000; ++i) {
+            wide.getChild("w" + i, true).setValue(i);
+            expectedSum += i;
+        }
+        pool = new ForkJoinPool(4);
+        traversal = new ParallelTraversal(pool);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testCount() {
+        assertEquals(config.getKeys(true).size(), traversal.count(config));
+        assertEquals(5000, traversal.count(config.getNode("wide")));
+        assertEquals(0, traversal.count(config.getNode("wide.w1")));
+    }
+
+    @Test
+    public void testReduce() {
+        assertEquals(expectedSum, (long) traversal.reduce(config, SUM));
+        assertEquals(expectedSum, (long) ParallelTraversal.getDefault().reduce(config, SUM));
+    }
+
+    @Test
+    public void testPersistentConfiguration() {
+        PersistentConfiguration persistent = new PersistentConfiguration(config);
+        assertEquals(expectedSum, (long) traversal.reduce(persistent, SUM));
+    }
+}
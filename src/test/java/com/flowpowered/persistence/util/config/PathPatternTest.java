@@ -0,0 +1,101 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.ConfigurationNodeSource;
+import com.flowpowered.persistence.config.MapConfiguration;
+import com.flowpowered.persistence.config.PathPattern;
+import com.flowpowered.persistence.config.PersistentConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PathPatternTest {
+    private MapConfiguration config;
+
+    @Before
+    public void setUp() {
+        config = new MapConfiguration();
+        config.getNode("servers.eu.port").setValue(1);
+        config.getNode("servers.eu.timeout").setValue(2);
+        config.getNode("servers.us.port").setValue(3);
+        config.getNode("servers.us.db.timeout").setValue(4);
+        config.getNode("timeout").setValue(5);
+        config.getNode("port").setValue(6);
+    }
+
+    private static Set<String> match(ConfigurationNodeSource source, String pattern) {
+        Set<String> paths = new HashSet<String>();
+        for (ConfigurationNode node : source.getNodes(PathPattern.compile(pattern, "."))) {
+            paths.add(node.getPath());
+        }
+        return paths;
+    }
+
+    private static Set<String> set(String... paths) {
+        return new HashSet<String>(Arrays.asList(paths));
+    }
+
+    @Test
+    public void testWildcards() {
+        assertEquals(set("servers.eu.port", "servers.us.port"), match(config, "servers.*.port"));
+        assertEquals(set("timeout", "servers.eu.timeout", "servers.us.db.timeout"), match(config, "**.timeout"));
+        assertEquals(set("servers.us.db.timeout"), match(config, "servers.**.db.*"));
+        assertEquals(set("servers.eu.port"), match(config, "servers.eu.port"));
+        assertEquals(set(), match(config, "servers.asia.*"));
+        assertEquals(set("servers", "servers.eu", "servers.eu.port", "servers.eu.timeout", "servers.us", "servers.us.port", "servers.us.db", "servers.us.db.timeout"), match(config, "servers.**"));
+        assertEquals(set("servers.eu.port", "servers.us.port"), match(config.getNode("servers"), "*.port"));
+    }
+
+    @Test
+    public void testMatches() {
+        PathPattern pattern = PathPattern.of("a", "**", "b");
+        assertTrue(pattern.matches("a", "b"));
+        assertTrue(pattern.matches("a", "x", "y", "b"));
+        assertFalse(pattern.matches("a", "x", "c"));
+        assertFalse(pattern.matches("b"));
+    }
+
+    @Test
+    public void testCompiledPatternsCached() {
+        assertSame(PathPattern.compile("servers.*.port", "."), PathPattern.compile("servers.*.port", "."));
+        assertEquals(PathPattern.of("servers", "*", "port"), PathPattern.compile("servers/*/port", "/"));
+    }
+
+    @Test
+    public void testPersistentConfiguration() {
+        PersistentConfiguration persistent = new PersistentConfiguration(config);
+        assertEquals(set("servers.eu.port", "servers.us.port"), match(persistent, "servers.*.port"));
+    }
+}
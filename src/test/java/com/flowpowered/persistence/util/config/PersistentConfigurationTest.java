@@ -0,0 +1,154 @@
+/*
+ * This file is part of Flow Persistence, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2013 Flow Powered <https://flowpowered.com/>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.flowpowered.persistence.util.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.flowpowered.persistence.config.ConfigurationException;
+import com.flowpowered.persistence.config.ConfigurationNode;
+import com.flowpowered.persistence.config.MapConfiguration;
+import com.flowpowered.persistence.config.PersistentConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentConfigurationTest {
+    private Map<Object, Object> data;
+    private MapConfiguration backing;
+    private PersistentConfiguration config;
+
+    @Before
+    public void setUp() throws ConfigurationException {
+        data = new HashMap<Object, Object>();
+        Map<Object, Object> nested = new HashMap<Object, Object>();
+        nested.put("bar", "baz");
+        nested.put("count", 3);
+        data.put("foo", nested);
+        data.put("top", "level");
+        backing = new MapConfiguration(data);
+        config = new PersistentConfiguration(backing);
+        config.load();
+    }
+
+    @Test
+    public void testRead() {
+        assertEquals("baz", config.getNode("foo.bar").getString());
+        assertEquals(3, config.getNode("foo", "count").getInt());
+        assertTrue(config.hasNode("foo", "bar"));
+        assertFalse(config.hasNode("foo", "missing"));
+        assertEquals(2, config.getNode("foo").getChildren().size());
+        assertTrue(config.getKeys(true).contains("foo.bar"));
+        assertEquals("level", config.getValues().get("top"));
+    }
+
+    @Test
+    public void testWrite() {
+        ConfigurationNode node = config.getNode("foo.bar");
+        assertEquals("baz", node.setValue("qux"));
+        assertEquals("qux", node.getValue());
+        config.getNode("a.b.c").setValue(1);
+        assertEquals(1, config.getNode("a").getNode("b.c").getValue());
+        node.remove();
+        assertFalse(node.isAttached());
+        assertNull(node.getValue());
+        assertFalse(config.getNode("foo").hasChild("bar"));
+        assertTrue(config.getNode("foo").hasChild("count"));
+    }
+
+    @Test
+    public void testFork() {
+        PersistentConfiguration fork = config.fork();
+        fork.getNode("foo.bar").setValue("forked");
+        fork.removeChild("top");
+        config.getNode("foo.count").setValue(4);
+        assertEquals("baz", config.getNode("foo.bar").getValue());
+        assertEquals("level", config.getNode("top").getValue());
+        assertEquals("forked", fork.getNode("foo.bar").getValue());
+        assertEquals(3, fork.getNode("foo.count").getValue());
+        assertFalse(fork.hasChild("top"));
+    }
+
+    @Test
+    public void testManyChildren() {
+        ConfigurationNode parent = config.getNode("many");
+        for (int i = 0; i < 2000; ++i) {
+            parent.getChild("key" + i, true).setValue(i);
+        }
+        // "Aa" and "BB" have the same hash code
+        parent.getChild("Aa", true).setValue("Aa");
+        parent.getChild("BB", true).setValue("BB");
+        assertEquals(2002, parent.getChildren().size());
+        for (int i = 0; i < 2000; i += 2) {
+            parent.removeChild("key" + i);
+        }
+        parent.removeChild("Aa");
+        assertEquals(1001, parent.getChildren().size());
+        assertEquals(1999, parent.getChild("key1999").getValue());
+        assertFalse(parent.hasChild("key1998"));
+        assertEquals("BB", parent.getChild("BB").getValue());
+    }
+
+    @Test
+    public void testSave() throws ConfigurationException {
+        config.getNode("foo.bar").setValue("saved");
+        config.removeChild("top");
+        assertEquals("baz", backing.getNode("foo.bar").getValue());
+        config.save();
+        assertEquals("saved", backing.getNode("foo.bar").getValue());
+        assertFalse(backing.hasChild("top"));
+        @SuppressWarnings ("unchecked")
+        Map<Object, Object> saved = (Map<Object, Object>) backing.getMap().get("foo");
+        assertEquals("saved", saved.get("bar"));
+    }
+
+    @Test
+    public void testKeyOrder() throws ConfigurationException {
+        List<String> keys = new ArrayList<String>();
+        ConfigurationNode parent = config.getNode("ordered");
+        for (int i = 20; i > 0; --i) {
+            keys.add("key" + i);
+            parent.getChild("key" + i, true).setValue(i);
+        }
+        parent.getChild("key10").setValue("replaced");
+        assertEquals(keys, new ArrayList<String>(parent.getChildren().keySet()));
+        config.save();
+        assertEquals(keys, new ArrayList<String>(backing.getNode("ordered").getKeys(false)));
+        @SuppressWarnings ("unchecked")
+        Map<Object, Object> saved = (Map<Object, Object>) backing.getMap().get("ordered");
+        assertEquals(keys, new ArrayList<Object>(saved.keySet()));
+    }
+
+    @Test
+    public void testSnapshot() {
+        assertEquals("baz", config.snapshot().getNode("foo.bar").getValue());
+    }
+}